@@ -0,0 +1,78 @@
+package org.example.benchmark;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.example.model.User;
+import org.example.repository.impl.EpochDayPredicate;
+import org.example.repository.impl.ScalarEpochDayScanner;
+import org.example.repository.impl.VectorEpochDayScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EpochDayScanBenchmark {
+    private static final LocalDate FROM_DATE = LocalDate.parse("1970-01-01");
+    private static final LocalDate TO_DATE = LocalDate.parse("1990-01-01");
+    private final ScalarEpochDayScanner scalarScanner = new ScalarEpochDayScanner();
+    private final VectorEpochDayScanner vectorScanner = new VectorEpochDayScanner();
+    private final EpochDayPredicate predicate = EpochDayPredicate.between(
+            FROM_DATE.toEpochDay() + 1, TO_DATE.toEpochDay() - 1);
+
+    @Param({"1000000"})
+    private int userCount;
+
+    private int[] days;
+    private List<User> users;
+    private long[] matches;
+
+    @Setup
+    public void setUp() {
+        days = new int[userCount];
+        for (int i = 0; i < userCount; i++) {
+            days[i] = (int) SyntheticUsers.randomBirthDate().toEpochDay();
+        }
+        users = Arrays.stream(days)
+                .mapToObj(day -> User.builder().birthDate(LocalDate.ofEpochDay(day))
+                .build())
+                .toList();
+        matches = new long[(userCount + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    @Benchmark
+    public long[] vectorColumn() {
+        Arrays.fill(matches, 0);
+        vectorScanner.scan(days, userCount, predicate, matches);
+        return matches;
+    }
+
+    @Benchmark
+    public long[] scalarColumn() {
+        Arrays.fill(matches, 0);
+        scalarScanner.scan(days, userCount, predicate, matches);
+        return matches;
+    }
+
+    @Benchmark
+    public long objectFilter() {
+        return users.stream()
+                .filter(user -> user.getBirthDate().isAfter(FROM_DATE)
+                        && user.getBirthDate().isBefore(TO_DATE))
+                .count();
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.example.exception.EntityNotFoundException;
+import org.example.exception.ErrorResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A rejected request: throw from {@code depth} frames down, catch, build the error body. At
+ * depth 0 only the exception and the body are measured; 100 frames is roughly where Tomcat
+ * and Spring MVC put a controller call, and unwinding them costs both variants alike.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ErrorPathBenchmark {
+    private static final String MESSAGE = "Can't find user by id: 42";
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Param({"0", "100"})
+    private int depth;
+
+    @Benchmark
+    public byte[] stackTraceAndMap() throws JsonProcessingException {
+        try {
+            throwAt(depth, () -> new RuntimeException(MESSAGE));
+            return null;
+        } catch (RuntimeException e) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("timestamp", LocalDateTime.now());
+            body.put("status", HttpStatus.NOT_FOUND);
+            body.put("message", e.getMessage());
+            return objectMapper.writeValueAsBytes(body);
+        }
+    }
+
+    @Benchmark
+    public byte[] stacklessAndEncoded() {
+        try {
+            throwAt(depth, () -> new EntityNotFoundException(MESSAGE));
+            return null;
+        } catch (EntityNotFoundException e) {
+            return ErrorResponse.of(HttpStatus.NOT_FOUND, e.getMessage()).toJson();
+        }
+    }
+
+    private static void throwAt(int depth, Supplier<RuntimeException> exception) {
+        if (depth == 0) {
+            throw exception.get();
+        }
+        throwAt(depth - 1, exception);
+    }
+}
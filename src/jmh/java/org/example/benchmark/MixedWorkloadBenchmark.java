@@ -0,0 +1,69 @@
+package org.example.benchmark;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.example.dto.UserPageResponseDto;
+import org.example.dto.UserResponseDto;
+import org.example.repository.UserRepository;
+import org.example.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MixedWorkloadBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final int SEARCH_WINDOW_DAYS = 30;
+
+    @Param({"10000", "1000000", "10000000"})
+    private int userCount;
+
+    private UserRepository userRepository;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userRepository = SyntheticUsers.repository(userCount);
+        userService = SyntheticUsers.service(userRepository);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public void read(Blackhole blackhole) {
+        blackhole.consume(userRepository.findById(SyntheticUsers.randomIndex(userCount) + 1));
+        blackhole.consume(searchPage());
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public UserResponseDto write() {
+        return userService.updateUserInfoPartially(SyntheticUsers.randomIndex(userCount) + 1,
+                Map.of("birthDate", SyntheticUsers.randomBirthDate().toString()));
+    }
+
+    private UserPageResponseDto searchPage() {
+        LocalDate fromDate = SyntheticUsers.randomBirthDate();
+        return userService.searchByBirthDateRange(fromDate,
+                fromDate.plusDays(SEARCH_WINDOW_DAYS), null, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.benchmark;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.example.cache.SearchResultCache;
+import org.example.dto.UserRegistrationRequestDto;
+import org.example.index.NamePrefixIndex;
+import org.example.index.UserStatistics;
+import org.example.mapper.UserMapper;
+import org.example.mapper.impl.UserMapperImpl;
+import org.example.model.User;
+import org.example.query.QueryPlanner;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.example.service.UserService;
+import org.example.service.impl.LockingUserWriter;
+import org.example.service.impl.UserPatcher;
+import org.example.service.impl.UserServiceImpl;
+import org.example.storage.NoOpWriteAheadLog;
+
+final class SyntheticUsers {
+    static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    static final int BIRTH_DATE_SPREAD_DAYS = 20_000;
+    static final UserMapper MAPPER = new UserMapperImpl();
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory()
+            .getValidator();
+    private static final String[] FIRST_NAMES = {"Eric", "Mark", "Anna", "Olena", "Taras"};
+    private static final String[] LAST_NAMES = {"Brown", "Lumberg", "Smith", "Shevchenko"};
+
+    private SyntheticUsers() {
+    }
+
+    static UserRepository repository(int userCount) {
+        UserRepository userRepository = new InMemoryUserRepository();
+        List<User> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+        for (int index = 0; index < userCount; index++) {
+            batch.add(MAPPER.toModel(requestDto(index)).toBuilder().id(index + 1).build());
+            if (batch.size() == LOAD_BATCH_SIZE) {
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        userRepository.saveAll(batch);
+        return userRepository;
+    }
+
+    static UserService service(UserRepository userRepository) {
+        NamePrefixIndex namePrefixIndex = new NamePrefixIndex(userRepository);
+        UserStatistics userStatistics = new UserStatistics(userRepository);
+        return new UserServiceImpl(MAPPER, userRepository,
+                VALIDATOR, new UserPatcher(VALIDATOR, 18),
+                new LockingUserWriter(userRepository, new NoOpWriteAheadLog(),
+                        List.of(namePrefixIndex, userStatistics)),
+                new SearchResultCache(0, 0), namePrefixIndex,
+                new QueryPlanner(userRepository, namePrefixIndex, userStatistics));
+    }
+
+    static UserRegistrationRequestDto requestDto(int index) {
+        return new UserRegistrationRequestDto()
+                .setEmail(email(index))
+                .setFirstName(FIRST_NAMES[index % FIRST_NAMES.length])
+                .setLastName(LAST_NAMES[index % LAST_NAMES.length])
+                .setBirthDate(birthDate(index))
+                .setAddress("Lisova, " + index % 100)
+                .setPhoneNumber(index % 2 == 0 ? null : "+38050" + index);
+    }
+
+    static String email(int index) {
+        return "user" + index + "@example.com";
+    }
+
+    static LocalDate birthDate(int index) {
+        return FIRST_BIRTH_DATE.plusDays((index * 7919L) % BIRTH_DATE_SPREAD_DAYS);
+    }
+
+    static int randomIndex(int userCount) {
+        return ThreadLocalRandom.current().nextInt(userCount);
+    }
+
+    static LocalDate randomBirthDate() {
+        return FIRST_BIRTH_DATE.plusDays(
+                ThreadLocalRandom.current().nextInt(BIRTH_DATE_SPREAD_DAYS));
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.benchmark;
+
+import jakarta.validation.Validation;
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.example.exception.ValidationException;
+import org.example.model.User;
+import org.example.service.impl.UserPatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserPatchBenchmark {
+    private static final int MINIMUM_AGE = 18;
+    private final UserPatcher userPatcher = new UserPatcher(
+            Validation.buildDefaultValidatorFactory().getValidator(), MINIMUM_AGE);
+    private final User user = SyntheticUsers.MAPPER.toModel(SyntheticUsers.requestDto(1));
+    private final Map<String, Object> fields = Map.of(
+            "firstName", "Eric",
+            "lastName", "Smith",
+            "address", "UnionStreet, 111",
+            "birthDate", "1990-05-01");
+
+    @Benchmark
+    public User setterTable() {
+        return userPatcher.apply(user, fields);
+    }
+
+    @Benchmark
+    public User reflection() {
+        User patched = user.toBuilder().build();
+        fields.forEach((key, value) -> {
+            Field field = ReflectionUtils.findField(User.class, key);
+            if (field != null) {
+                if (!"address".equals(key) && !"phoneNumber".equals(key)
+                        && (value == null || value.toString().trim().isEmpty())) {
+                    throw new ValidationException(key + " must not be empty!");
+                }
+                field.setAccessible(true);
+                if ("birthDate".equals(key)) {
+                    LocalDate birthDate = LocalDate.parse((String) value);
+                    if (birthDate.isBefore(LocalDate.now())
+                            && Period.between(birthDate, LocalDate.now()).getYears()
+                            >= MINIMUM_AGE) {
+                        value = birthDate;
+                    } else {
+                        throw new ValidationException("Invalid birth date. Check again");
+                    }
+                }
+                ReflectionUtils.setField(field, patched, value);
+            }
+        });
+        return patched;
+    }
+}
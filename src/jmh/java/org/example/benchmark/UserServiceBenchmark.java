@@ -0,0 +1,93 @@
+package org.example.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.dto.UserPageResponseDto;
+import org.example.dto.UserResponseDto;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserServiceBenchmark {
+    private static final int SEARCH_WINDOW_DAYS = 7;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000", "1000000", "10000000"})
+    private int userCount;
+
+    private UserRepository userRepository;
+    private UserService userService;
+    private AtomicInteger registrations;
+    private User sampleUser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userRepository = SyntheticUsers.repository(userCount);
+        userService = SyntheticUsers.service(userRepository);
+        registrations = new AtomicInteger(userCount);
+        sampleUser = userRepository.findById(1).orElseThrow();
+    }
+
+    @Benchmark
+    public UserResponseDto register() {
+        return userService.register(SyntheticUsers.requestDto(registrations.getAndIncrement()));
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userRepository.findById(SyntheticUsers.randomIndex(userCount) + 1);
+    }
+
+    @Benchmark
+    public Optional<User> findByEmail() {
+        return userRepository.findByEmail(
+                SyntheticUsers.email(SyntheticUsers.randomIndex(userCount)));
+    }
+
+    @Benchmark
+    public UserResponseDto updateUserInfoPartially() {
+        return userService.updateUserInfoPartially(SyntheticUsers.randomIndex(userCount) + 1,
+                Map.of("lastName", "Patched", "address", "Svobody, 42"));
+    }
+
+    @Benchmark
+    public List<UserResponseDto> searchByBirthDateRange() {
+        LocalDate fromDate = SyntheticUsers.randomBirthDate();
+        return userService.searchByBirthDateRange(fromDate,
+                fromDate.plusDays(SEARCH_WINDOW_DAYS));
+    }
+
+    @Benchmark
+    public UserPageResponseDto searchByBirthDateRangePage() {
+        LocalDate fromDate = SyntheticUsers.randomBirthDate();
+        return userService.searchByBirthDateRange(fromDate,
+                fromDate.plusDays(SEARCH_WINDOW_DAYS * 10), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public UserResponseDto toDto() {
+        return SyntheticUsers.MAPPER.toDto(sampleUser);
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+@RequiredArgsConstructor
+@Component
+@Endpoint(id = "searchcache")
+public class SearchCacheEndpoint {
+    private final SearchResultCache searchResultCache;
+
+    @ReadOperation
+    public SearchResultCache.Stats stats() {
+        return searchResultCache.stats();
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.cache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.example.dto.UserResponseDto;
+import org.example.model.User;
+import org.example.service.UserChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches whole birthdate-range search results, keyed by the range. Results are bounded by the
+ * number of users they hold in total and expire after a fixed time. A change to a user drops
+ * only the entries whose range contains the user's old or new birthdate.
+ *
+ * <p>Concurrent misses for one range share a single load. A load is registered before it reads
+ * the repository, so a change applied while it runs removes it and its result is never served
+ * to later callers.
+ */
+@Component
+public class SearchResultCache implements UserChangeListener {
+    private final Map<Range, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxUsers;
+    private final AtomicLong cachedUsers = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public SearchResultCache(@Value("${search.cache.ttl-ms:60000}") long ttlMillis,
+                             @Value("${search.cache.max-users:100000}") int maxUsers) {
+        this.ttlNanos = Duration.ofMillis(ttlMillis).toNanos();
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Returns the cached result for the range, loading it on a miss. The loader gets at most
+     * {@link #maxUsers()} + 1 users; results larger than the cache can hold are not kept, and
+     * nothing is returned for them so callers fall back to an uncached query.
+     */
+    public Optional<List<UserResponseDto>> get(LocalDate fromDate, LocalDate toDate,
+                                               Supplier<List<UserResponseDto>> loader) {
+        if (maxUsers == 0) {
+            return Optional.empty();
+        }
+        Range range = new Range(fromDate.toEpochDay(), toDate.toEpochDay());
+        while (true) {
+            Entry entry = entries.get(range);
+            if (entry == null) {
+                Entry loading = new Entry(new CompletableFuture<>());
+                if (entries.putIfAbsent(range, loading) == null) {
+                    misses.increment();
+                    return load(range, loading, loader);
+                }
+            } else if (!entry.result.isDone()) {
+                coalesced.increment();
+                return Optional.ofNullable(entry.result.join());
+            } else if (entry.expiresAt - System.nanoTime() <= 0) {
+                remove(range, entry);
+            } else {
+                hits.increment();
+                return Optional.ofNullable(entry.result.join());
+            }
+        }
+    }
+
+    @Override
+    public void onChange(User before, User after) {
+        if (before != null) {
+            invalidate(before.getBirthDate());
+        }
+        if (after != null
+                && (before == null || !after.getBirthDate().equals(before.getBirthDate()))) {
+            invalidate(after.getBirthDate());
+        }
+    }
+
+    @Override
+    public void onUndo(User undone, User restored) {
+        onChange(undone, restored);
+    }
+
+    public int maxUsers() {
+        return maxUsers;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(),
+                invalidations.sum(), entries.size(), cachedUsers.get());
+    }
+
+    private Optional<List<UserResponseDto>> load(Range range, Entry loading,
+                                                 Supplier<List<UserResponseDto>> loader) {
+        List<UserResponseDto> result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException e) {
+            entries.remove(range, loading);
+            loading.result.completeExceptionally(e);
+            throw e;
+        }
+        if (result == null || result.size() > maxUsers) {
+            remove(range, loading);
+            loading.result.complete(null);
+            return Optional.empty();
+        }
+        loading.expiresAt = System.nanoTime() + ttlNanos;
+        loading.weight = result.size();
+        loading.result.complete(result);
+        entries.computeIfPresent(range, (key, current) -> {
+            if (current == loading) {
+                current.counted = true;
+                cachedUsers.addAndGet(current.weight);
+            }
+            return current;
+        });
+        evictIfFull();
+        return Optional.of(result);
+    }
+
+    private void invalidate(LocalDate birthDate) {
+        long day = birthDate.toEpochDay();
+        entries.forEach((range, entry) -> {
+            if (range.contains(day) && remove(range, entry)) {
+                invalidations.increment();
+            }
+        });
+    }
+
+    private void evictIfFull() {
+        while (cachedUsers.get() > maxUsers) {
+            Optional<Map.Entry<Range, Entry>> oldest = entries.entrySet().stream()
+                    .filter(candidate -> candidate.getValue().counted)
+                    .min(Comparator.comparingLong(candidate -> candidate.getValue().expiresAt));
+            if (oldest.isEmpty()) {
+                return;
+            }
+            if (remove(oldest.get().getKey(), oldest.get().getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean remove(Range range, Entry entry) {
+        boolean[] removed = new boolean[1];
+        entries.computeIfPresent(range, (key, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            if (current.counted) {
+                cachedUsers.addAndGet(-current.weight);
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    public record Stats(long hits, long misses, long coalesced, long evictions,
+                        long invalidations, int entries, long users) {
+    }
+
+    private record Range(long fromDay, long toDay) {
+        boolean contains(long day) {
+            return day > fromDay && day < toDay;
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<List<UserResponseDto>> result;
+        private volatile long expiresAt;
+        private volatile int weight;
+        private volatile boolean counted;
+
+        private Entry(CompletableFuture<List<UserResponseDto>> result) {
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+import org.example.dto.UserResponseDto;
+import org.example.model.User;
+import org.example.service.UserChangeListener;
+import org.example.tracing.RequestTrace;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps single users as ready-to-send JSON bytes with their entity tag, so a repeated read is
+ * a map lookup. A change to a user drops its entry. When the cache is full, a CLOCK sweep
+ * evicts an entry that hasn't been read since the hand last passed it.
+ *
+ * <p>Loads race with changes without locking: every change bumps a striped stamp before it
+ * drops the entry, and a load that sees the stamp move while it ran discards its result.
+ *
+ * <p>Last-Modified has one-second precision, so a second handed out with one body of a user
+ * must never come with another. Each stripe remembers the latest second it handed out; a
+ * change makes every later entry of the stripe start after it. An entry that would have to
+ * carry a second still in the future is served without Last-Modified and not kept.
+ */
+@Component
+public class UserJsonCache implements UserChangeListener {
+    public static final long NO_LAST_MODIFIED = -1;
+    private static final int STAMP_STRIPES = 1024;
+    private static final long SECOND_MILLIS = 1000;
+    private final Map<Integer, Slot> users = new ConcurrentHashMap<>();
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private final AtomicLongArray handedOut = new AtomicLongArray(STAMP_STRIPES);
+    private final AtomicLongArray lastModifiedFloors = new AtomicLongArray(STAMP_STRIPES);
+    private final ObjectMapper objectMapper;
+    private final int maxUsers;
+    private Iterator<Map.Entry<Integer, Slot>> clockHand = Collections.emptyIterator();
+
+    public UserJsonCache(ObjectMapper objectMapper,
+                         @Value("${user.json-cache.max-users:100000}") int maxUsers) {
+        this.objectMapper = objectMapper;
+        this.maxUsers = maxUsers;
+    }
+
+    public CachedUser get(int id, IntFunction<UserResponseDto> loader) {
+        Slot cached = users.get(id);
+        if (cached != null) {
+            if (!cached.referenced) {
+                cached.referenced = true;
+            }
+            return cached.user;
+        }
+        int stripe = stripe(id);
+        final long stamp = stamps.get(stripe);
+        UserResponseDto user = loader.apply(id);
+        long now = System.currentTimeMillis();
+        long lastModified = Math.max(now - now % SECOND_MILLIS,
+                lastModifiedFloors.get(stripe));
+        if (lastModified > now) {
+            return serialize(user, NO_LAST_MODIFIED);
+        }
+        handedOut.accumulateAndGet(stripe, lastModified, Math::max);
+        Slot loaded = new Slot(serialize(user, lastModified));
+        if (users.size() >= maxUsers) {
+            evictOne();
+        }
+        users.put(id, loaded);
+        if (stamps.get(stripe) != stamp) {
+            users.remove(id, loaded);
+            lastModifiedFloors.accumulateAndGet(stripe, lastModified + SECOND_MILLIS, Math::max);
+        }
+        return loaded.user;
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    @Override
+    public void onChange(User before, User after) {
+        int id = after == null ? before.getId() : after.getId();
+        int stripe = stripe(id);
+        stamps.incrementAndGet(stripe);
+        lastModifiedFloors.accumulateAndGet(stripe, handedOut.get(stripe) + SECOND_MILLIS,
+                Math::max);
+        users.remove(id);
+    }
+
+    @Override
+    public void onUndo(User undone, User restored) {
+        onChange(undone, restored);
+    }
+
+    private CachedUser serialize(UserResponseDto user, long lastModified) {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.SERIALIZATION);
+        try {
+            return new CachedUser(objectMapper.writeValueAsBytes(user),
+                    "\"" + user.getVersion() + "\"", lastModified);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            RequestTrace.exit(previous);
+        }
+    }
+
+    /**
+     * Advances the clock hand, giving read entries a second chance, until it finds one to
+     * evict. The hand is an iterator over the map that starts over when it runs out; two
+     * sweeps clear every reference bit, so the loop always ends.
+     */
+    private synchronized void evictOne() {
+        for (int step = 0; step <= 2 * users.size(); step++) {
+            if (!clockHand.hasNext()) {
+                clockHand = users.entrySet().iterator();
+                if (!clockHand.hasNext()) {
+                    return;
+                }
+            }
+            Map.Entry<Integer, Slot> entry = clockHand.next();
+            Slot slot = entry.getValue();
+            if (slot.referenced) {
+                slot.referenced = false;
+            } else if (users.remove(entry.getKey(), slot)) {
+                return;
+            }
+        }
+    }
+
+    private static int stripe(int id) {
+        return id & (STAMP_STRIPES - 1);
+    }
+
+    /**
+     * @param lastModified epoch milliseconds, or {@link #NO_LAST_MODIFIED}
+     */
+    public record CachedUser(byte[] json, String eTag, long lastModified) {
+    }
+
+    private static final class Slot {
+        private final CachedUser user;
+        private volatile boolean referenced;
+
+        private Slot(CachedUser user) {
+            this.user = user;
+        }
+    }
+}
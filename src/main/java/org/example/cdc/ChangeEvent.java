@@ -0,0 +1,26 @@
+package org.example.cdc;
+
+import org.example.model.User;
+
+/**
+ * One change published to {@link ChangeRingBuffer}, as reported to
+ * {@link org.example.service.UserChangeListener}.
+ */
+public record ChangeEvent(long sequence, User before, User after) {
+    public Type type() {
+        if (before == null) {
+            return Type.REGISTERED;
+        }
+        return after == null ? Type.DELETED : Type.UPDATED;
+    }
+
+    public int userId() {
+        return after == null ? before.getId() : after.getId();
+    }
+
+    public enum Type {
+        REGISTERED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.cdc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.example.model.User;
+
+/**
+ * Lock-free ring of the most recent changes. A writer claims the next sequence number with
+ * one atomic increment and stores its event in the slot the sequence maps to, overwriting the
+ * event one lap older. Writers never wait for readers: a reader that falls a lap behind finds
+ * a newer event in the slot it wanted and learns that it has been overrun.
+ *
+ * <p>A slot only ever moves to a higher sequence, so a writer that stalls between claiming its
+ * sequence and storing its event can't overwrite a newer one; its event is lost instead, and a
+ * reader waiting for it is told it was overrun.
+ */
+final class ChangeRingBuffer {
+    private final AtomicReferenceArray<ChangeEvent> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong(1);
+
+    ChangeRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    long publish(User before, User after) {
+        long sequence = nextSequence.getAndIncrement();
+        ChangeEvent event = new ChangeEvent(sequence, before, after);
+        int slot = (int) (sequence & mask);
+        while (true) {
+            ChangeEvent current = slots.get(slot);
+            if (current != null && current.sequence() > sequence
+                    || slots.compareAndSet(slot, current, event)) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * Sequence the next change will get; every lower sequence has been claimed.
+     */
+    long nextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * The event with the given sequence, or {@code null} when its writer hasn't stored it yet.
+     *
+     * @throws OverrunException when the event has already been overwritten
+     */
+    ChangeEvent get(long sequence) {
+        ChangeEvent event = slots.get((int) (sequence & mask));
+        if (event == null || event.sequence() < sequence) {
+            return null;
+        }
+        if (event.sequence() > sequence) {
+            throw new OverrunException();
+        }
+        return event;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    static final class OverrunException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        OverrunException() {
+            super(null, null, false, false);
+        }
+    }
+}
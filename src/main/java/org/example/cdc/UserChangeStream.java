@@ -0,0 +1,235 @@
+package org.example.cdc;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.UserChangeEventDto;
+import org.example.mapper.UserMapper;
+import org.example.model.User;
+import org.example.service.UserChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Publishes every user change into a {@link ChangeRingBuffer} and pushes it to Server-Sent
+ * Events subscribers. Event ids are {@code <stream>-<sequence>}, where the stream id changes
+ * with every start of the application, so a client can resume after a disconnect by sending
+ * the last id it saw as {@code Last-Event-ID}.
+ *
+ * <p>Writers only publish and wake the notifier thread, which hands each subscriber with
+ * pending changes to a sender thread of its own. A subscriber that can't keep up doesn't hold
+ * anyone back; once the buffer has moved a full lap past it, or when it resumes from an id
+ * that is no longer buffered, it gets a {@value #RESYNC_EVENT} event and is disconnected.
+ * The notifier also wakes every heartbeat interval, so idle subscribers get a comment and
+ * closed connections are noticed.
+ */
+@Slf4j
+@Component
+public class UserChangeStream implements UserChangeListener, AutoCloseable {
+    public static final String RESYNC_EVENT = "resync";
+    private static final int MAX_EVENTS_PER_SEND = 256;
+    private static final long RESYNC = -1;
+    private final ChangeRingBuffer buffer;
+    private final UserMapper userMapper;
+    private final String streamId = Long.toString(System.currentTimeMillis());
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long heartbeatNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "change-stream-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread notifier;
+    private volatile boolean closed;
+
+    public UserChangeStream(UserMapper userMapper,
+            @Value("${changes.buffer-size:8192}") int bufferSize,
+            @Value("${changes.max-subscribers:256}") int maxSubscribers,
+            @Value("${changes.timeout-ms:300000}") long timeoutMillis,
+            @Value("${changes.heartbeat-ms:15000}") long heartbeatMillis) {
+        this.buffer = new ChangeRingBuffer(bufferSize);
+        this.userMapper = userMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        this.notifier = new Thread(this::notifyLoop, "change-stream-notifier");
+        this.notifier.setDaemon(true);
+        this.notifier.start();
+    }
+
+    @Override
+    public void onChange(User before, User after) {
+        buffer.publish(before, after);
+        LockSupport.unpark(notifier);
+    }
+
+    /**
+     * Streams changes made after the one {@code lastEventId} names, or, without it, changes
+     * made from now on.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many change stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, resumeFrom(lastEventId));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        notifier.interrupt();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private long resumeFrom(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return buffer.nextSequence();
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(streamId)) {
+            return RESYNC;
+        }
+        try {
+            long sequence = Long.parseLong(lastEventId.substring(separator + 1));
+            return sequence < buffer.nextSequence() ? sequence + 1 : RESYNC;
+        } catch (NumberFormatException e) {
+            return RESYNC;
+        }
+    }
+
+    private void notifyLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(heartbeatNanos);
+            subscribers.forEach(this::schedule);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        subscriber.signalled.set(true);
+        if (!closed && subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        subscriber.signalled.set(false);
+        boolean more = false;
+        try {
+            if (subscriber.cursor == RESYNC) {
+                resync(subscriber);
+                return;
+            }
+            more = sendPending(subscriber);
+        } catch (ChangeRingBuffer.OverrunException e) {
+            resync(subscriber);
+            return;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping change stream subscriber", e);
+            subscribers.remove(subscriber);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (more || subscriber.signalled.get()) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Sends buffered changes until the subscriber has caught up, reaches a change whose writer
+     * hasn't stored it yet, or has been sent its share for this turn.
+     *
+     * @return whether changes were left over only because the share ran out
+     */
+    private boolean sendPending(Subscriber subscriber) throws IOException {
+        int sent = 0;
+        while (subscriber.cursor < buffer.nextSequence()) {
+            ChangeEvent event = buffer.get(subscriber.cursor);
+            if (event == null) {
+                break;
+            }
+            if (sent == MAX_EVENTS_PER_SEND) {
+                return true;
+            }
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(streamId + "-" + event.sequence())
+                    .name(event.type().name().toLowerCase(Locale.ROOT))
+                    .data(toDto(event), MediaType.APPLICATION_JSON));
+            subscriber.cursor++;
+            sent++;
+        }
+        long now = System.nanoTime();
+        if (sent > 0) {
+            subscriber.lastSentNanos = now;
+        } else if (now - subscriber.lastSentNanos >= heartbeatNanos) {
+            subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            subscriber.lastSentNanos = now;
+        }
+        return false;
+    }
+
+    private void resync(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .name(RESYNC_EVENT)
+                    .data("Changes since the last event are no longer available; reload the "
+                            + "users and subscribe again without Last-Event-ID"));
+            subscriber.emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Can't tell change stream subscriber to resync", e);
+        }
+    }
+
+    private UserChangeEventDto toDto(ChangeEvent event) {
+        return new UserChangeEventDto()
+                .setSequence(event.sequence())
+                .setType(event.type())
+                .setId(event.userId())
+                .setUser(event.after() == null ? null : userMapper.toDto(event.after()));
+    }
+
+    /**
+     * Only the sender holding {@code scheduled} touches the cursor. {@code signalled} is set on
+     * every wake-up, so one arriving while a sender is finishing isn't lost.
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean signalled = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile long lastSentNanos = System.nanoTime();
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
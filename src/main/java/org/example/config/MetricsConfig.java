@@ -0,0 +1,52 @@
+package org.example.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.cache.SearchResultCache;
+import org.example.cache.UserJsonCache;
+import org.example.cdc.UserChangeStream;
+import org.example.index.NamePrefixIndex;
+import org.example.repository.UserRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder userStoreMetrics(UserRepository userRepository,
+                                        SearchResultCache searchResultCache,
+                                        UserJsonCache userJsonCache,
+                                        NamePrefixIndex namePrefixIndex,
+                                        UserChangeStream userChangeStream) {
+        return registry -> {
+            Gauge.builder("users.count", userRepository, UserRepository::count)
+                    .description("Users in the store")
+                    .register(registry);
+            Gauge.builder("users.search.cache.entries", searchResultCache,
+                            cache -> cache.stats().entries())
+                    .description("Birthdate ranges held by the search cache")
+                    .register(registry);
+            Gauge.builder("users.search.cache.users", searchResultCache,
+                            cache -> cache.stats().users())
+                    .description("Users held across all cached birthdate ranges")
+                    .register(registry);
+            Gauge.builder("users.json.cache.entries", userJsonCache, UserJsonCache::size)
+                    .description("Users held as serialized JSON")
+                    .register(registry);
+            Gauge.builder("users.name.index.nodes", namePrefixIndex, NamePrefixIndex::nodeCount)
+                    .description("Nodes of the name prefix trie")
+                    .register(registry);
+            Gauge.builder("users.changes.subscribers", userChangeStream,
+                            UserChangeStream::subscriberCount)
+                    .description("Clients subscribed to the change stream")
+                    .register(registry);
+        };
+    }
+}
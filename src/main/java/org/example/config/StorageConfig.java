@@ -0,0 +1,105 @@
+package org.example.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.ColumnarUserRepository;
+import org.example.repository.impl.EmailFilteredUserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.example.repository.impl.ShardedUserRepository;
+import org.example.service.UserChangeListener;
+import org.example.service.impl.LockingUserWriter;
+import org.example.service.impl.PipelinedUserWriter;
+import org.example.service.impl.UserWriter;
+import org.example.storage.Checkpointer;
+import org.example.storage.FileWriteAheadLog;
+import org.example.storage.NoOpWriteAheadLog;
+import org.example.storage.SnapshotStore;
+import org.example.storage.WriteAheadLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StorageConfig {
+    @Bean
+    public UserRepository userRepository(
+            @Value("${storage.engine:objects}") String engine,
+            @Value("${storage.shards:1}") int shards,
+            @Value("${storage.email-filter.enabled:true}") boolean emailFilter
+    ) {
+        Supplier<UserRepository> factory = switch (engine) {
+            case "objects" -> InMemoryUserRepository::new;
+            case "columnar" -> ColumnarUserRepository::new;
+            default -> throw new IllegalArgumentException("Unknown storage engine: " + engine);
+        };
+        UserRepository repository = shards == 1
+                ? factory.get() : new ShardedUserRepository(shards, factory);
+        return emailFilter ? new EmailFilteredUserRepository(repository) : repository;
+    }
+
+    @Bean
+    public SnapshotStore snapshotStore(@Value("${storage.directory:data}") Path directory) {
+        return new SnapshotStore(directory);
+    }
+
+    @Bean(destroyMethod = "close")
+    public WriteAheadLog writeAheadLog(
+            UserRepository userRepository,
+            SnapshotStore snapshotStore,
+            @Value("${storage.wal.enabled:false}") boolean enabled,
+            @Value("${storage.directory:data}") Path directory,
+            @Value("${storage.wal.commit-delay-ms:1}") long commitDelayMillis
+    ) throws IOException {
+        if (!enabled) {
+            return new NoOpWriteAheadLog();
+        }
+        long firstSegment = snapshotStore.load(userRepository::save)
+                .map(header -> {
+                    userRepository.reserveIdsThrough(header.lastId());
+                    return header.firstSegment();
+                })
+                .orElse(0L);
+        FileWriteAheadLog writeAheadLog = new FileWriteAheadLog(
+                directory, Duration.ofMillis(commitDelayMillis));
+        writeAheadLog.replay(firstSegment, record -> {
+            switch (record.type()) {
+                case UPSERT -> userRepository.save(record.user());
+                case DELETE -> userRepository.deleteById(record.id());
+                default -> throw new IllegalStateException("Unknown record " + record.type());
+            }
+        });
+        writeAheadLog.start();
+        return writeAheadLog;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "storage.wal.enabled", havingValue = "true")
+    public Checkpointer checkpointer(
+            UserRepository userRepository,
+            WriteAheadLog writeAheadLog,
+            SnapshotStore snapshotStore,
+            @Value("${storage.snapshot.interval-ms:300000}") long intervalMillis
+    ) {
+        Checkpointer checkpointer = new Checkpointer(userRepository, writeAheadLog,
+                snapshotStore);
+        checkpointer.start(Duration.ofMillis(intervalMillis));
+        return checkpointer;
+    }
+
+    @Bean(destroyMethod = "close")
+    public UserWriter userWriter(
+            UserRepository userRepository,
+            WriteAheadLog writeAheadLog,
+            List<UserChangeListener> changeListeners,
+            @Value("${storage.write-pipeline.enabled:false}") boolean pipelined
+    ) {
+        return pipelined
+                ? new PipelinedUserWriter(userRepository, writeAheadLog, changeListeners)
+                : new LockingUserWriter(userRepository, writeAheadLog, changeListeners);
+    }
+}
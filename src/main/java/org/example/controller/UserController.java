@@ -1,15 +1,34 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import org.example.cache.UserJsonCache;
+import org.example.cdc.UserChangeStream;
+import org.example.dto.BatchRegistrationResultDto;
 import org.example.dto.SearchByBirthDateRequestDto;
+import org.example.dto.SearchByNameRequestDto;
+import org.example.dto.UserAggregatesDto;
+import org.example.dto.UserPageResponseDto;
+import org.example.dto.UserQueryRequestDto;
+import org.example.dto.UserQueryResponseDto;
 import org.example.dto.UserRegistrationRequestDto;
 import org.example.dto.UserResponseDto;
 import org.example.exception.RegistrationException;
+import org.example.exception.VersionConflictException;
+import org.example.service.UserAggregatesService;
 import org.example.service.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -17,33 +36,66 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping(value = "/users")
 public class UserController {
+    public static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    private static final int STREAM_CHUNK_SIZE = 256;
     private final UserService userService;
+    private final UserAggregatesService userAggregatesService;
+    private final UserJsonCache userJsonCache;
+    private final ObjectMapper objectMapper;
+    private final UserChangeStream userChangeStream;
 
     @PostMapping("/registration")
-    @ResponseStatus(HttpStatus.CREATED)
-    public UserResponseDto register(@RequestBody @Valid UserRegistrationRequestDto requestDto)
+    public ResponseEntity<UserResponseDto> register(
+            @RequestBody @Valid UserRegistrationRequestDto requestDto)
             throws RegistrationException {
-        return userService.register(requestDto);
+        return withETag(ResponseEntity.status(HttpStatus.CREATED),
+                userService.register(requestDto));
+    }
+
+    @PostMapping("/registration/batch")
+    public List<BatchRegistrationResultDto> registerAll(
+            @RequestBody List<UserRegistrationRequestDto> requestDtos) {
+        return userService.registerAll(requestDtos);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> findById(@PathVariable int id) {
+        UserJsonCache.CachedUser user = userJsonCache.get(id, userService::getUser);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(user.eTag());
+        if (user.lastModified() != UserJsonCache.NO_LAST_MODIFIED) {
+            response.lastModified(user.lastModified());
+        }
+        return response.body(user.json());
     }
 
     @PutMapping("/{id}")
-    public UserResponseDto updateAllUserInfo(@PathVariable int id,
-                                  @RequestBody @Valid UserRegistrationRequestDto requestDto) {
-        return userService.updateUserInfo(id, requestDto);
+    public ResponseEntity<UserResponseDto> updateAllUserInfo(@PathVariable int id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody @Valid UserRegistrationRequestDto requestDto) {
+        return withETag(ResponseEntity.ok(),
+                userService.updateUserInfo(id, requestDto, expectedVersion(ifMatch)));
     }
 
     @PatchMapping("/{id}")
-    public UserResponseDto updatePartially(@PathVariable int id,
-                                  @RequestBody Map<String, Object> fields) {
-        return userService.updateUserInfoPartially(id, fields);
+    public ResponseEntity<UserResponseDto> updatePartially(@PathVariable int id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, Object> fields) {
+        return withETag(ResponseEntity.ok(),
+                userService.updateUserInfoPartially(id, fields, expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/{id}")
@@ -53,7 +105,85 @@ public class UserController {
     }
 
     @GetMapping("/searchByBirthDateRange")
-    public List<UserResponseDto> searchUsers(@Valid SearchByBirthDateRequestDto requestDto) {
-        return userService.searchByBirthDateRange(requestDto.getFromDate(), requestDto.getToDate());
+    public ResponseEntity<List<UserResponseDto>> searchUsers(
+            @Valid SearchByBirthDateRequestDto requestDto) {
+        UserPageResponseDto page = userService.searchByBirthDateRange(requestDto.getFromDate(),
+                requestDto.getToDate(), requestDto.getPageToken(), requestDto.getPageSize());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextPageToken() != null) {
+            response.header(NEXT_PAGE_TOKEN_HEADER, page.getNextPageToken());
+        }
+        return response.body(page.getUsers());
+    }
+
+    @GetMapping(value = "/searchByBirthDateRange", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(
+            @Valid SearchByBirthDateRequestDto requestDto) {
+        ObjectWriter writer = objectMapper.writerFor(UserResponseDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<UserResponseDto> users = userService.streamByBirthDateRange(
+                    requestDto.getFromDate(), requestDto.getToDate());
+                    JsonGenerator generator = objectMapper.getFactory()
+                            .createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                Iterator<UserResponseDto> iterator = users.iterator();
+                for (int written = 1; iterator.hasNext(); written++) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                    if (written % STREAM_CHUNK_SIZE == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/searchByName")
+    public List<UserResponseDto> searchByName(@Valid SearchByNameRequestDto requestDto) {
+        return userService.searchByNamePrefix(requestDto.getPrefix(), requestDto.getLimit());
+    }
+
+    @GetMapping("/query")
+    public UserQueryResponseDto query(@Valid UserQueryRequestDto requestDto) {
+        return userService.query(requestDto);
+    }
+
+    @GetMapping("/aggregates")
+    public UserAggregatesDto aggregates() {
+        return userAggregatesService.getAggregates();
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return userChangeStream.subscribe(lastEventId);
+    }
+
+    private static ResponseEntity<UserResponseDto> withETag(ResponseEntity.BodyBuilder response,
+                                                            UserResponseDto user) {
+        return response.eTag(Long.toString(user.getVersion())).body(user);
+    }
+
+    /**
+     * The version a strong {@code If-Match} entity tag asks for, or null when the header is
+     * absent or {@code *}. A weak or malformed tag can never match a version.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        try {
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the conflict below
+        }
+        throw new VersionConflictException("If-Match " + tag + " doesn't match the user");
     }
 }
@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import java.util.List;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(chain = true)
+public class BatchRegistrationResultDto {
+    private int index;
+    private Status status;
+    private UserResponseDto user;
+    private List<String> errors;
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A request carrying a birthdate range, checked by
+ * {@link org.example.validation.FromDateBeforeToDate}.
+ */
+public interface BirthDateRange {
+    LocalDate getFromDate();
+
+    LocalDate getToDate();
+}
@@ -0,0 +1,24 @@
+package org.example.dto;
+
+import java.util.List;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(chain = true)
+public class QueryPlanDto {
+    private String accessPath;
+    private String drivingFilter;
+    private long estimatedRows;
+    private long rowsExamined;
+    private List<String> residualFilters;
+    private List<Estimate> estimates;
+
+    @Data
+    @Accessors(chain = true)
+    public static class Estimate {
+        private String filter;
+        private String accessPath;
+        private long estimatedRows;
+    }
+}
@@ -1,14 +1,24 @@
 package org.example.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.time.LocalDate;
 import lombok.Data;
 import org.example.validation.FromDateBeforeToDate;
 
 @Data
 @FromDateBeforeToDate
-public class SearchByBirthDateRequestDto {
+public class SearchByBirthDateRequestDto implements BirthDateRange {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
 
     private LocalDate fromDate;
 
     private LocalDate toDate;
+
+    @Min(value = 1, message = "must be at least 1")
+    @Max(value = MAX_PAGE_SIZE, message = "must be at most " + MAX_PAGE_SIZE)
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private String pageToken;
 }
@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class SearchByNameRequestDto {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    @NotBlank
+    private String prefix;
+
+    @Min(value = 1, message = "must be at least 1")
+    @Max(value = MAX_LIMIT, message = "must be at most " + MAX_LIMIT)
+    private int limit = DEFAULT_LIMIT;
+}
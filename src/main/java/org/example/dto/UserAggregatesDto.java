@@ -0,0 +1,28 @@
+package org.example.dto;
+
+import java.util.List;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(chain = true)
+public class UserAggregatesDto {
+    private int users;
+    private List<BirthYear> birthYears;
+    private List<AgeBracket> ageBrackets;
+
+    @Data
+    @Accessors(chain = true)
+    public static class BirthYear {
+        private int year;
+        private int users;
+    }
+
+    @Data
+    @Accessors(chain = true)
+    public static class AgeBracket {
+        private int fromAge;
+        private Integer toAge;
+        private int users;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.example.cdc.ChangeEvent;
+
+@Data
+@Accessors(chain = true)
+public class UserChangeEventDto {
+    private long sequence;
+    private ChangeEvent.Type type;
+    private int id;
+    private UserResponseDto user;
+}
@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import java.util.List;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(chain = true)
+public class UserPageResponseDto {
+    private List<UserResponseDto> users;
+    private String nextPageToken;
+}
@@ -0,0 +1,34 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import java.time.LocalDate;
+import lombok.Data;
+import org.example.validation.FromDateBeforeToDate;
+
+@Data
+@FromDateBeforeToDate(optional = true)
+public class UserQueryRequestDto implements BirthDateRange {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    private static final String NOT_BLANK = ".*\\S.*";
+
+    private LocalDate fromDate;
+
+    private LocalDate toDate;
+
+    @Pattern(regexp = NOT_BLANK, message = "must not be blank")
+    private String firstNamePrefix;
+
+    @Pattern(regexp = NOT_BLANK, message = "must not be blank")
+    private String lastNamePrefix;
+
+    private Boolean hasPhoneNumber;
+
+    @Min(value = 1, message = "must be at least 1")
+    @Max(value = MAX_LIMIT, message = "must be at most " + MAX_LIMIT)
+    private int limit = DEFAULT_LIMIT;
+
+    private boolean explain;
+}
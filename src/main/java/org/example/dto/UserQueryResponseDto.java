@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(chain = true)
+public class UserQueryResponseDto {
+    private List<UserResponseDto> users;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private QueryPlanDto plan;
+}
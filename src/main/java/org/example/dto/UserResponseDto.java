@@ -1,5 +1,6 @@
 package org.example.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
 import lombok.Data;
 import lombok.experimental.Accessors;
@@ -14,4 +15,6 @@ public class UserResponseDto {
     private LocalDate birthDate;
     private String address;
     private String phoneNumber;
+    @JsonIgnore
+    private long version;
 }
@@ -1,12 +1,12 @@
 package org.example.exception;
 
-import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import java.util.List;
-import java.util.Map;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
@@ -18,6 +18,29 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 @ControllerAdvice
 public class CustomGlobalExceptionHandler extends ResponseEntityExceptionHandler {
+    private static final ClassValue<Counter> ERROR_COUNTERS = new ClassValue<>() {
+        @Override
+        protected Counter computeValue(Class<?> type) {
+            return Metrics.counter("user.errors", "exception", type.getSimpleName());
+        }
+    };
+
+    /**
+     * Every handled exception ends here, the ones Spring maps itself as well as the domain
+     * ones below, so this is where errors are counted by type.
+     */
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(
+            Exception ex,
+            Object body,
+            HttpHeaders headers,
+            HttpStatusCode statusCode,
+            WebRequest request
+    ) {
+        ERROR_COUNTERS.get(ex.getClass()).increment();
+        return super.handleExceptionInternal(ex, body, headers, statusCode, request);
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex,
@@ -25,41 +48,46 @@ public class CustomGlobalExceptionHandler extends ResponseEntityExceptionHandler
             HttpStatusCode status,
             WebRequest request
     ) {
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST);
         List<String> errors = ex.getBindingResult().getAllErrors().stream()
                 .map(this::getErrorMessage)
                 .toList();
-        body.put("errors", errors);
-        return new ResponseEntity<>(body, headers, status);
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.putAll(headers);
+        responseHeaders.setContentType(MediaType.APPLICATION_JSON);
+        return handleExceptionInternal(ex,
+                ErrorResponse.of(HttpStatus.BAD_REQUEST, errors).toJson(), responseHeaders,
+                status, request);
     }
 
     @ExceptionHandler(EntityNotFoundException.class)
-    protected ResponseEntity<Object> handleEntityNotFoundException(Exception ex) {
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.NOT_FOUND);
-        body.put("message", ex.getMessage());
-        return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
+    protected ResponseEntity<Object> handleEntityNotFoundException(Exception ex,
+                                                                   WebRequest request) {
+        return error(HttpStatus.NOT_FOUND, ex, request);
     }
 
     @ExceptionHandler(RegistrationException.class)
-    protected ResponseEntity<Object> handleRegistrationException(Exception ex) {
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST);
-        body.put("message", ex.getMessage());
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    protected ResponseEntity<Object> handleRegistrationException(Exception ex,
+                                                                 WebRequest request) {
+        return error(HttpStatus.BAD_REQUEST, ex, request);
     }
 
     @ExceptionHandler(ValidationException.class)
-    protected ResponseEntity<Object> handleValidationException(Exception ex) {
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("timestamp", LocalDateTime.now());
-        body.put("status", HttpStatus.BAD_REQUEST);
-        body.put("message", ex.getMessage());
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+    protected ResponseEntity<Object> handleValidationException(Exception ex,
+                                                               WebRequest request) {
+        return error(HttpStatus.BAD_REQUEST, ex, request);
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    protected ResponseEntity<Object> handleVersionConflictException(Exception ex,
+                                                                    WebRequest request) {
+        return error(HttpStatus.PRECONDITION_FAILED, ex, request);
+    }
+
+    private ResponseEntity<Object> error(HttpStatus status, Exception ex, WebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return handleExceptionInternal(ex, ErrorResponse.of(status, ex.getMessage()).toJson(),
+                headers, status, request);
     }
 
     private String getErrorMessage(ObjectError e) {
@@ -0,0 +1,14 @@
+package org.example.exception;
+
+/**
+ * Base of the exceptions that report a rejected request rather than a bug. They are thrown on
+ * every invalid registration or unknown id, so they skip filling in a stack trace, which is
+ * most of the cost of throwing and is never logged for them.
+ */
+public abstract class DomainException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.exception;
 
-public class EntityNotFoundException extends RuntimeException {
+public class EntityNotFoundException extends DomainException {
+    private static final long serialVersionUID = 1L;
+
     public EntityNotFoundException(String message) {
         super(message);
     }
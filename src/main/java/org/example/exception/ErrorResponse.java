@@ -0,0 +1,82 @@
+package org.example.exception;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Error body written straight to JSON bytes, in the same shape Jackson gave the old map body.
+ * Everything that depends only on the status is encoded once; per error only the timestamp
+ * and the messages are encoded. The timestamp is formatted as ISO_LOCAL_DATE_TIME, like
+ * Jackson's LocalDateTime serializer: seconds always present, fraction trimmed.
+ */
+public record ErrorResponse(HttpStatus status, String message, List<String> errors) {
+    private static final int INITIAL_SIZE = 128;
+    private static final byte[] TIMESTAMP = ascii("{\"timestamp\":\"");
+    private static final Map<HttpStatus, byte[]> STATUSES = statuses();
+    private static final byte[] MESSAGE = ascii(",\"message\":");
+    private static final byte[] ERRORS = ascii(",\"errors\":[");
+    private static final byte[] NULL = ascii("null");
+
+    public static ErrorResponse of(HttpStatus status, String message) {
+        return new ErrorResponse(status, message, null);
+    }
+
+    public static ErrorResponse of(HttpStatus status, List<String> errors) {
+        return new ErrorResponse(status, null, errors);
+    }
+
+    public byte[] toJson() {
+        return toJson(LocalDateTime.now());
+    }
+
+    byte[] toJson(LocalDateTime timestamp) {
+        ByteArrayOutputStream json = new ByteArrayOutputStream(INITIAL_SIZE);
+        json.writeBytes(TIMESTAMP);
+        json.writeBytes(ascii(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp)));
+        json.writeBytes(STATUSES.get(status));
+        if (errors == null) {
+            json.writeBytes(MESSAGE);
+            writeString(json, message);
+        } else {
+            json.writeBytes(ERRORS);
+            for (int i = 0; i < errors.size(); i++) {
+                if (i > 0) {
+                    json.write(',');
+                }
+                writeString(json, errors.get(i));
+            }
+            json.write(']');
+        }
+        json.write('}');
+        return json.toByteArray();
+    }
+
+    private static void writeString(ByteArrayOutputStream json, String value) {
+        if (value == null) {
+            json.writeBytes(NULL);
+            return;
+        }
+        json.write('"');
+        json.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+        json.write('"');
+    }
+
+    private static Map<HttpStatus, byte[]> statuses() {
+        Map<HttpStatus, byte[]> statuses = new EnumMap<>(HttpStatus.class);
+        for (HttpStatus status : HttpStatus.values()) {
+            statuses.put(status, ascii("\",\"status\":\"" + status.name() + "\""));
+        }
+        return statuses;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.exception;
 
-public class RegistrationException extends RuntimeException {
+public class RegistrationException extends DomainException {
+    private static final long serialVersionUID = 1L;
+
     public RegistrationException(String message) {
         super(message);
     }
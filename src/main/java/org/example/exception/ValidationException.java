@@ -1,6 +1,8 @@
 package org.example.exception;
 
-public class ValidationException extends RuntimeException {
+public class ValidationException extends DomainException {
+    private static final long serialVersionUID = 1L;
+
     public ValidationException(String message) {
         super(message);
     }
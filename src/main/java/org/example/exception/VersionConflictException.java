@@ -0,0 +1,9 @@
+package org.example.exception;
+
+public class VersionConflictException extends DomainException {
+    private static final long serialVersionUID = 1L;
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,319 @@
+package org.example.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.service.UserChangeListener;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trie over case-folded first and last names, leading to the ids of the users who carry each
+ * name. A search walks down the prefix and then depth-first through the subtree in character
+ * order, stopping at the limit. Empty branches are pruned on removal, so every node visited
+ * leads to a match and the cost depends on the prefix length and the limit, not on how many
+ * users there are.
+ *
+ * <p>Built from the store once it has been restored, then kept up to date as a
+ * {@link UserChangeListener}. Writers and searches share a read-write lock. A change is not
+ * applied as given: the names of both its sides are dropped and the user is re-indexed as
+ * currently stored, so a change delivered late or twice can't leave stale names behind.
+ */
+@Component
+@DependsOn("writeAheadLog")
+public class NamePrefixIndex implements UserChangeListener {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    private final UserRepository userRepository;
+    private int nodes = 1;
+
+    public NamePrefixIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+        userRepository.findAll().forEach(user -> names(user).forEach(
+                name -> add(name, user.getId())));
+    }
+
+    /**
+     * Ids of up to {@code limit} users whose first or last name starts with {@code prefix},
+     * ignoring case, ordered by the matching name and then by id.
+     */
+    public List<Integer> search(String prefix, int limit) {
+        Set<Integer> found = new LinkedHashSet<>();
+        lock.readLock().lock();
+        try {
+            Node node = descend(normalize(prefix));
+            if (node != null) {
+                collect(node, found, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return List.copyOf(found);
+    }
+
+    /**
+     * Up to {@code limit} matches of {@code prefix} that come after {@code after} in the order
+     * of {@link #search}, or the first ones when {@code after} is null. A user matching
+     * through both names is returned once per name. Lets a caller page through a large
+     * subtree, holding the lock for one page at a time.
+     */
+    public List<Match> searchAfter(String prefix, Match after, int limit) {
+        List<Match> found = new ArrayList<>();
+        String key = normalize(prefix);
+        Match bound = after;
+        if (bound != null && !bound.name().startsWith(key)) {
+            if (bound.name().compareTo(key) > 0) {
+                return found;
+            }
+            bound = null;
+        }
+        lock.readLock().lock();
+        try {
+            Node node = descend(key);
+            if (node != null) {
+                collectAfter(node, new StringBuilder(key), bound, found, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Upper bound on the number of users whose first or last name starts with {@code prefix}:
+     * a user matching through both names is counted twice. Costs one walk down the prefix.
+     */
+    public int estimate(String prefix) {
+        lock.readLock().lock();
+        try {
+            Node node = descend(normalize(prefix));
+            return node == null ? 0 : node.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-indexes the changed user as the repository holds it now. Changes to one user are
+     * handled one at a time, each after its save, so the last one handled reads the last
+     * version and drops the names of every version before it.
+     */
+    @Override
+    public void onChange(User before, User after) {
+        int id = after == null ? before.getId() : after.getId();
+        lock.writeLock().lock();
+        try {
+            List<String> current = userRepository.findById(id)
+                    .map(NamePrefixIndex::names)
+                    .orElse(List.of());
+            Stream.of(before, after)
+                    .filter(Objects::nonNull)
+                    .flatMap(user -> names(user).stream())
+                    .filter(name -> !current.contains(name))
+                    .forEach(name -> remove(name, id));
+            current.forEach(name -> add(name, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Node descend(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private void add(String name, int id) {
+        Node[] path = new Node[name.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < name.length(); i++) {
+            path[i + 1] = path[i].child(name.charAt(i));
+            if (path[i + 1] == null) {
+                path[i + 1] = path[i].addChild(name.charAt(i));
+                nodes++;
+            }
+        }
+        if (path[name.length()].addId(id)) {
+            for (Node node : path) {
+                node.size++;
+            }
+        }
+    }
+
+    private void remove(String name, int id) {
+        Node[] path = new Node[name.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < name.length(); i++) {
+            path[i + 1] = path[i].child(name.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        if (!path[name.length()].removeId(id)) {
+            return;
+        }
+        for (Node node : path) {
+            node.size--;
+        }
+        for (int depth = name.length(); depth > 0 && path[depth].isEmpty(); depth--) {
+            path[depth - 1].removeChild(name.charAt(depth - 1));
+            nodes--;
+        }
+    }
+
+    private static void collect(Node node, Set<Integer> found, int limit) {
+        for (int i = 0; i < node.idCount && found.size() < limit; i++) {
+            found.add(node.ids[i]);
+        }
+        for (int i = 0; i < node.childCount && found.size() < limit; i++) {
+            collect(node.children[i], found, limit);
+        }
+    }
+
+    /**
+     * Collects depth-first like {@link #collect}, skipping what comes up to {@code after}:
+     * only the branch along its name is entered until the node holding it is reached.
+     */
+    private static void collectAfter(Node node, StringBuilder name, Match after,
+                                     List<Match> found, int limit) {
+        int depth = name.length();
+        Match bound = after;
+        if (bound == null || depth == bound.name().length()) {
+            int from = 0;
+            if (bound != null) {
+                int index = Arrays.binarySearch(node.ids, 0, node.idCount, bound.id());
+                from = index >= 0 ? index + 1 : -index - 1;
+                bound = null;
+            }
+            for (int i = from; i < node.idCount && found.size() < limit; i++) {
+                found.add(new Match(name.toString(), node.ids[i]));
+            }
+        }
+        for (int i = 0; i < node.childCount && found.size() < limit; i++) {
+            char key = node.keys[i];
+            if (bound != null && key < bound.name().charAt(depth)) {
+                continue;
+            }
+            name.append(key);
+            collectAfter(node.children[i], name,
+                    bound != null && key == bound.name().charAt(depth) ? bound : null,
+                    found, limit);
+            name.setLength(depth);
+        }
+    }
+
+    private static List<String> names(User user) {
+        return Arrays.asList(user.getFirstName(), user.getLastName()).stream()
+                .filter(Objects::nonNull)
+                .map(NamePrefixIndex::normalize)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One user found under a name, as the case-folded name and the user's id.
+     */
+    public record Match(String name, int id) {
+    }
+
+    /**
+     * Children kept as parallel arrays sorted by character, ids as a sorted array. {@code size}
+     * counts the ids held by the node and all of its descendants.
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final int[] NO_IDS = new int[0];
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        private int[] ids = NO_IDS;
+        private int idCount;
+        private int size;
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, 0, childCount, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char key) {
+            int index = -Arrays.binarySearch(keys, 0, childCount, key) - 1;
+            if (childCount == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(1, childCount * 2));
+                children = Arrays.copyOf(children, keys.length);
+            }
+            System.arraycopy(keys, index, keys, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            Node child = new Node();
+            keys[index] = key;
+            children[index] = child;
+            childCount++;
+            return child;
+        }
+
+        void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, 0, childCount, key);
+            if (index < 0) {
+                return;
+            }
+            childCount--;
+            System.arraycopy(keys, index + 1, keys, index, childCount - index);
+            System.arraycopy(children, index + 1, children, index, childCount - index);
+            children[childCount] = null;
+        }
+
+        boolean addId(int id) {
+            int index = Arrays.binarySearch(ids, 0, idCount, id);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(1, idCount * 2));
+            }
+            System.arraycopy(ids, index, ids, index + 1, idCount - index);
+            ids[index] = id;
+            idCount++;
+            return true;
+        }
+
+        boolean removeId(int id) {
+            int index = Arrays.binarySearch(ids, 0, idCount, id);
+            if (index < 0) {
+                return false;
+            }
+            idCount--;
+            System.arraycopy(ids, index + 1, ids, index, idCount - index);
+            return true;
+        }
+
+        boolean isEmpty() {
+            return childCount == 0 && idCount == 0;
+        }
+    }
+}
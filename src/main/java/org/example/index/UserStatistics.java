@@ -0,0 +1,143 @@
+package org.example.index;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.service.UserChangeListener;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts of users by birth day, by birth year and by phone number presence. Every change is
+ * a handful of hash map counter updates; reads touch at most one entry per distinct birth year
+ * plus the days of one partial year, never the users themselves. Built from the store once it
+ * has been restored, then kept up to date as a {@link UserChangeListener}.
+ */
+@Component
+@DependsOn("writeAheadLog")
+public class UserStatistics implements UserChangeListener {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> usersByBirthDay = new HashMap<>();
+    private final Map<Integer, Integer> usersByBirthYear = new HashMap<>();
+    private int users;
+    private int usersWithPhoneNumber;
+
+    public UserStatistics(UserRepository userRepository) {
+        userRepository.findAll().forEach(user -> onChange(null, user));
+    }
+
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countWithPhoneNumber() {
+        lock.readLock().lock();
+        try {
+            return usersWithPhoneNumber;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of users born strictly between the two dates, matching
+     * {@link UserRepository#findAllByBirthDateBetween(LocalDate, LocalDate)}.
+     */
+    public int countBirthDateBetween(LocalDate fromDate, LocalDate toDate) {
+        if (!fromDate.plusDays(1).isBefore(toDate)) {
+            return 0;
+        }
+        lock.readLock().lock();
+        try {
+            return countBornFrom(fromDate.plusDays(1)) - countBornFrom(toDate);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users per birth year, and for each of {@code fromDates} the users born on or after it,
+     * read together so that they add up.
+     */
+    public BirthDateCounts birthDateCounts(List<LocalDate> fromDates) {
+        lock.readLock().lock();
+        try {
+            int[] usersBornFrom = new int[fromDates.size()];
+            for (int i = 0; i < usersBornFrom.length; i++) {
+                usersBornFrom[i] = countBornFrom(fromDates.get(i));
+            }
+            return new BirthDateCounts(users, new TreeMap<>(usersByBirthYear), usersBornFrom);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onChange(User before, User after) {
+        lock.writeLock().lock();
+        try {
+            if (before != null) {
+                apply(before, -1);
+            }
+            if (after != null) {
+                apply(after, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int countBornFrom(LocalDate fromDate) {
+        int count = 0;
+        for (Map.Entry<Integer, Integer> entry : usersByBirthYear.entrySet()) {
+            if (entry.getKey() > fromDate.getYear()) {
+                count += entry.getValue();
+            }
+        }
+        if (usersByBirthYear.containsKey(fromDate.getYear())) {
+            long lastDay = fromDate.withDayOfYear(fromDate.lengthOfYear()).toEpochDay();
+            for (long day = fromDate.toEpochDay(); day <= lastDay; day++) {
+                count += usersByBirthDay.getOrDefault(day, 0);
+            }
+        }
+        return count;
+    }
+
+    private void apply(User user, int delta) {
+        users += delta;
+        if (hasPhoneNumber(user)) {
+            usersWithPhoneNumber += delta;
+        }
+        if (user.getBirthDate() != null) {
+            usersByBirthDay.merge(user.getBirthDate().toEpochDay(), delta, UserStatistics::add);
+            usersByBirthYear.merge(user.getBirthDate().getYear(), delta, UserStatistics::add);
+        }
+    }
+
+    private static Integer add(Integer count, Integer delta) {
+        return count + delta == 0 ? null : count + delta;
+    }
+
+    public static boolean hasPhoneNumber(User user) {
+        return user.getPhoneNumber() != null && !user.getPhoneNumber().isBlank();
+    }
+
+    /**
+     * {@code usersBornFrom} is indexed like the dates it was asked for.
+     */
+    public record BirthDateCounts(int users, SortedMap<Integer, Integer> usersByBirthYear,
+                                  int[] usersBornFrom) {
+    }
+}
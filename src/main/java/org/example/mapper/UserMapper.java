@@ -5,9 +5,12 @@ import org.example.dto.UserRegistrationRequestDto;
 import org.example.dto.UserResponseDto;
 import org.example.model.User;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(config = MapperConfig.class)
 public interface UserMapper {
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toModel(UserRegistrationRequestDto requestDto);
 
     UserResponseDto toDto(User user);
@@ -0,0 +1,33 @@
+package org.example.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import org.example.exception.ValidationException;
+
+public record BirthDateCursor(LocalDate birthDate, int id) {
+    private static final String SEPARATOR = ":";
+
+    public static BirthDateCursor of(User user) {
+        return new BirthDateCursor(user.getBirthDate(), user.getId());
+    }
+
+    public static BirthDateCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token),
+                    StandardCharsets.US_ASCII);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new BirthDateCursor(
+                    LocalDate.ofEpochDay(Long.parseLong(decoded.substring(0, separator))),
+                    Integer.parseInt(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ValidationException("Invalid page token: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = birthDate.toEpochDay() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -1,11 +1,16 @@
 package org.example.model;
 
 import java.time.LocalDate;
-import lombok.Data;
-import lombok.experimental.Accessors;
+import lombok.Builder;
+import lombok.Value;
 
-@Data
-@Accessors(chain = true)
+/**
+ * An immutable user as stored by {@link org.example.repository.UserRepository}. Every change
+ * saves a modified copy, made with {@link #toBuilder()}, with the next {@code version}, so
+ * readers never see a half-applied update.
+ */
+@Value
+@Builder(toBuilder = true)
 public class User {
     private int id;
     private String email;
@@ -14,4 +19,5 @@ public class User {
     private LocalDate birthDate;
     private String address;
     private String phoneNumber;
+    private long version;
 }
@@ -0,0 +1,36 @@
+package org.example.query;
+
+import java.util.List;
+import org.example.model.User;
+import org.example.query.UserQuery.Condition;
+
+/**
+ * How a {@link UserQuery} is run: the access path that produces candidate users, the
+ * condition it serves ({@code null} for a full scan), and the conditions still checked on
+ * every candidate. {@code estimates} lists the estimated number of users selected by each
+ * condition and by a full scan, the figures the plan was chosen from.
+ */
+public record QueryPlan(UserQuery query, AccessPath accessPath, Condition drivingCondition,
+                        long estimatedRows, List<Estimate> estimates,
+                        List<Condition> residualConditions) {
+    public boolean matchesResiduals(User user) {
+        for (Condition condition : residualConditions) {
+            if (!query.matches(condition, user)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public enum AccessPath {
+        BIRTH_DATE_INDEX,
+        NAME_PREFIX_INDEX,
+        FULL_SCAN
+    }
+
+    /**
+     * {@code accessPath} is {@code null} for a condition no index can drive.
+     */
+    public record Estimate(Condition condition, AccessPath accessPath, long rows) {
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.RequiredArgsConstructor;
+import org.example.index.NamePrefixIndex;
+import org.example.index.UserStatistics;
+import org.example.model.BirthDateCursor;
+import org.example.model.User;
+import org.example.query.QueryPlan.AccessPath;
+import org.example.query.QueryPlan.Estimate;
+import org.example.query.UserQuery.Condition;
+import org.example.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chooses how to run a {@link UserQuery}. Each condition gets an estimate of the users it
+ * selects: birthdate ranges from {@link UserStatistics}' birth day counts, name prefixes
+ * from the size of the matching {@link NamePrefixIndex} subtree, phone number presence from
+ * its count. The query is driven from the index with the smallest estimate, or from a full
+ * scan when no index beats it, and every other condition is checked on the users it yields.
+ *
+ * <p>The name index matches a prefix against first and last names alike, so a name condition
+ * stays a residual filter even when it drives the query.
+ *
+ * <p>Both indexes are read in chunks of about the limit, the next one fetched only once the
+ * residual filters have rejected enough of the last, so a small limit never loads or locks
+ * everything a broad condition selects.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryPlanner {
+    private static final int MAX_CHUNK_SIZE = 1024;
+    private final UserRepository userRepository;
+    private final NamePrefixIndex namePrefixIndex;
+    private final UserStatistics userStatistics;
+
+    public QueryPlan plan(UserQuery query) {
+        List<Estimate> estimates = new ArrayList<>();
+        for (Condition condition : query.conditions()) {
+            estimates.add(estimate(query, condition));
+        }
+        estimates.add(new Estimate(null, AccessPath.FULL_SCAN, userStatistics.count()));
+        Estimate driver = estimates.stream()
+                .filter(estimate -> estimate.accessPath() != null)
+                .min(Comparator.comparingLong(Estimate::rows))
+                .orElseThrow();
+        List<Condition> residualConditions = query.conditions().stream()
+                .filter(condition -> condition != driver.condition()
+                        || driver.accessPath() == AccessPath.NAME_PREFIX_INDEX)
+                .toList();
+        return new QueryPlan(query, driver.accessPath(), driver.condition(), driver.rows(),
+                List.copyOf(estimates), residualConditions);
+    }
+
+    /**
+     * Runs the plan until {@code limit} users match, in the order the access path yields
+     * them: by birthdate for the birthdate index, by matching name for the name index.
+     */
+    public QueryResult execute(QueryPlan plan, int limit) {
+        List<User> users = new ArrayList<>();
+        long rowsExamined = 0;
+        try (Stream<User> candidates = candidates(plan,
+                Math.max(1, Math.min(limit, MAX_CHUNK_SIZE)))) {
+            Iterator<User> iterator = candidates.iterator();
+            while (users.size() < limit && iterator.hasNext()) {
+                User user = iterator.next();
+                rowsExamined++;
+                if (plan.matchesResiduals(user)) {
+                    users.add(user);
+                }
+            }
+        }
+        return new QueryResult(users, rowsExamined);
+    }
+
+    private Estimate estimate(UserQuery query, Condition condition) {
+        return switch (condition) {
+            case BIRTH_DATE_RANGE -> new Estimate(condition, AccessPath.BIRTH_DATE_INDEX,
+                    userStatistics.countBirthDateBetween(query.fromDate(), query.toDate()));
+            case FIRST_NAME_PREFIX -> new Estimate(condition, AccessPath.NAME_PREFIX_INDEX,
+                    namePrefixIndex.estimate(query.firstNamePrefix()));
+            case LAST_NAME_PREFIX -> new Estimate(condition, AccessPath.NAME_PREFIX_INDEX,
+                    namePrefixIndex.estimate(query.lastNamePrefix()));
+            case HAS_PHONE_NUMBER -> new Estimate(condition, null, query.hasPhoneNumber()
+                    ? userStatistics.countWithPhoneNumber()
+                    : userStatistics.count() - userStatistics.countWithPhoneNumber());
+        };
+    }
+
+    private Stream<User> candidates(QueryPlan plan, int chunkSize) {
+        UserQuery query = plan.query();
+        String prefix = plan.drivingCondition() == Condition.FIRST_NAME_PREFIX
+                ? query.firstNamePrefix()
+                : query.lastNamePrefix();
+        return switch (plan.accessPath()) {
+            case BIRTH_DATE_INDEX -> chunks(chunkSize, last -> userRepository
+                    .findAllByBirthDateBetween(query.fromDate(), query.toDate(),
+                            last == null ? null : BirthDateCursor.of(last), chunkSize));
+            case NAME_PREFIX_INDEX -> chunks(chunkSize, (NamePrefixIndex.Match last) ->
+                            namePrefixIndex.searchAfter(prefix, last, chunkSize))
+                    .map(NamePrefixIndex.Match::id)
+                    .distinct()
+                    .map(userRepository::findById)
+                    .flatMap(Optional::stream);
+            case FULL_SCAN -> userRepository.findAll().stream();
+        };
+    }
+
+    /**
+     * Lazily concatenates the chunks {@code next} returns, each asked for with the last
+     * element of the one before (null for the first), until a chunk comes back short.
+     */
+    private static <T> Stream<T> chunks(int chunkSize, Function<T, List<T>> next) {
+        Iterator<T> iterator = new Iterator<>() {
+            private List<T> chunk = List.of();
+            private int position;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (position == chunk.size() && !exhausted) {
+                    chunk = next.apply(chunk.isEmpty() ? null : chunk.get(chunk.size() - 1));
+                    position = 0;
+                    exhausted = chunk.size() < chunkSize;
+                }
+                return position < chunk.size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return chunk.get(position++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.query;
+
+import java.util.List;
+import org.example.model.User;
+
+public record QueryResult(List<User> users, long rowsExamined) {
+}
@@ -0,0 +1,75 @@
+package org.example.query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.example.index.UserStatistics;
+import org.example.model.User;
+
+/**
+ * Filters combined by a composite user query. Every filter left {@code null} is not applied.
+ * Birth dates are matched strictly between {@code fromDate} and {@code toDate}, like the
+ * birthdate range search; name prefixes ignore case.
+ */
+public record UserQuery(LocalDate fromDate, LocalDate toDate, String firstNamePrefix,
+                        String lastNamePrefix, Boolean hasPhoneNumber) {
+    public UserQuery {
+        firstNamePrefix = normalize(firstNamePrefix);
+        lastNamePrefix = normalize(lastNamePrefix);
+    }
+
+    public List<Condition> conditions() {
+        List<Condition> conditions = new ArrayList<>();
+        if (fromDate != null && toDate != null) {
+            conditions.add(Condition.BIRTH_DATE_RANGE);
+        }
+        if (firstNamePrefix != null) {
+            conditions.add(Condition.FIRST_NAME_PREFIX);
+        }
+        if (lastNamePrefix != null) {
+            conditions.add(Condition.LAST_NAME_PREFIX);
+        }
+        if (hasPhoneNumber != null) {
+            conditions.add(Condition.HAS_PHONE_NUMBER);
+        }
+        return conditions;
+    }
+
+    public boolean matches(Condition condition, User user) {
+        return switch (condition) {
+            case BIRTH_DATE_RANGE -> user.getBirthDate() != null
+                    && user.getBirthDate().isAfter(fromDate)
+                    && user.getBirthDate().isBefore(toDate);
+            case FIRST_NAME_PREFIX -> startsWith(user.getFirstName(), firstNamePrefix);
+            case LAST_NAME_PREFIX -> startsWith(user.getLastName(), lastNamePrefix);
+            case HAS_PHONE_NUMBER -> UserStatistics.hasPhoneNumber(user) == hasPhoneNumber;
+        };
+    }
+
+    public String describe(Condition condition) {
+        return switch (condition) {
+            case BIRTH_DATE_RANGE -> "birthDate between " + fromDate + " and " + toDate;
+            case FIRST_NAME_PREFIX -> "firstName starts with '" + firstNamePrefix + "'";
+            case LAST_NAME_PREFIX -> "lastName starts with '" + lastNamePrefix + "'";
+            case HAS_PHONE_NUMBER -> hasPhoneNumber
+                    ? "phoneNumber is set"
+                    : "phoneNumber is not set";
+        };
+    }
+
+    private static boolean startsWith(String name, String prefix) {
+        return name != null && normalize(name).startsWith(prefix);
+    }
+
+    private static String normalize(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Condition {
+        BIRTH_DATE_RANGE,
+        FIRST_NAME_PREFIX,
+        LAST_NAME_PREFIX,
+        HAS_PHONE_NUMBER
+    }
+}
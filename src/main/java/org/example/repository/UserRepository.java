@@ -0,0 +1,51 @@
+package org.example.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.example.model.BirthDateCursor;
+import org.example.model.User;
+
+public interface UserRepository {
+    int nextId();
+
+    /**
+     * The highest id handed out by {@link #nextId} or saved so far.
+     */
+    int lastId();
+
+    /**
+     * Makes {@link #nextId} hand out only ids above {@code lastId}, even if no user with that
+     * id is stored any more.
+     */
+    void reserveIdsThrough(int lastId);
+
+    User save(User user);
+
+    /**
+     * Saves every user as {@link #save} would. Only the columnar engine publishes a batch at
+     * once; with the others, concurrent readers can see part of it.
+     */
+    void saveAll(Collection<User> users);
+
+    Optional<User> findById(int id);
+
+    Optional<User> findByEmail(String email);
+
+    boolean existsByEmail(String email);
+
+    Optional<User> deleteById(int id);
+
+    Collection<User> findAll();
+
+    Stream<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate);
+
+    List<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate,
+                                         BirthDateCursor after, int limit);
+
+    int count();
+
+    void deleteAll();
+}
@@ -0,0 +1,449 @@
+package org.example.repository.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+import org.example.model.BirthDateCursor;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.util.Emails;
+
+/**
+ * Keeps users in struct-of-arrays form: primitive id, epoch-day and version columns plus
+ * packed UTF-8 string columns, so a stored user costs a few array slots instead of a
+ * {@link User}, a {@link LocalDate} and six {@link String} objects. Users are only
+ * materialized on read.
+ *
+ * <p>Rows are append-only. Saving a user appends a new row and marks the old one dead, and the
+ * columns are compacted once dead rows outnumber live ones. Ids map to rows through a dense
+ * array and emails through an open-addressing table of row numbers that compares normalized
+ * emails, so neither index holds an object per user. The normalized email is only stored, in
+ * its own column, for rows whose email is not normalized already. Birthdate searches scan the
+ * epoch-day column with {@link EpochDayScanner}. Writers are serialized by a read-write lock.
+ */
+public class ColumnarUserRepository implements UserRepository {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_ROW = -1;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger idSequence = new AtomicInteger();
+    private final EpochDayScanner scanner = EpochDayScanner.create();
+    private int[] ids;
+    private int[] birthDays;
+    private long[] versions;
+    private Utf8Column emails;
+    private Utf8Column emailKeys;
+    private Utf8Column firstNames;
+    private Utf8Column lastNames;
+    private Utf8Column addresses;
+    private Utf8Column phoneNumbers;
+    private BitSet live;
+    private int rows;
+    private int liveRows;
+    private int[] rowsById;
+    private int[] emailTable;
+
+    public ColumnarUserRepository() {
+        reset(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public int nextId() {
+        return idSequence.incrementAndGet();
+    }
+
+    @Override
+    public int lastId() {
+        return idSequence.get();
+    }
+
+    @Override
+    public void reserveIdsThrough(int lastId) {
+        idSequence.accumulateAndGet(lastId, Math::max);
+    }
+
+    @Override
+    public User save(User user) {
+        lock.writeLock().lock();
+        try {
+            store(user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        idSequence.accumulateAndGet(user.getId(), Math::max);
+        return user;
+    }
+
+    /**
+     * Stores the whole batch under one write lock, so readers see all of it or none of it.
+     */
+    @Override
+    public void saveAll(Collection<User> users) {
+        lock.writeLock().lock();
+        try {
+            users.forEach(this::store);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        users.forEach(user -> idSequence.accumulateAndGet(user.getId(), Math::max));
+    }
+
+    @Override
+    public Optional<User> findById(int id) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return row == NO_ROW ? Optional.empty() : Optional.of(user(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        byte[] key = Emails.normalize(email).getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            int row = emailTable[emailSlot(key)];
+            return row == NO_ROW ? Optional.empty() : Optional.of(user(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        byte[] key = Emails.normalize(email).getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            return emailTable[emailSlot(key)] != NO_ROW;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<User> deleteById(int id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row == NO_ROW) {
+                return Optional.empty();
+            }
+            kill(row);
+            rowsById[id] = NO_ROW;
+            User removed = user(row);
+            compactIfSparse();
+            return Optional.of(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<User> iterator() {
+                return new UserIterator(idSequence.get());
+            }
+
+            @Override
+            public int size() {
+                return count();
+            }
+        };
+    }
+
+    @Override
+    public Stream<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate) {
+        long[] keys;
+        lock.readLock().lock();
+        try {
+            keys = scan(birthDateKey(fromDate.toEpochDay() + 1, 0),
+                    birthDateKey(toDate.toEpochDay(), 0));
+        } finally {
+            lock.readLock().unlock();
+        }
+        long fromDay = fromDate.toEpochDay();
+        long toDay = toDate.toEpochDay();
+        return Arrays.stream(keys)
+                .mapToObj(key -> findById((int) key))
+                .flatMap(Optional::stream)
+                .filter(user -> user.getBirthDate().toEpochDay() > fromDay
+                        && user.getBirthDate().toEpochDay() < toDay);
+    }
+
+    @Override
+    public List<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate,
+                                                BirthDateCursor after, int limit) {
+        long fromKey = birthDateKey(fromDate.toEpochDay() + 1, 0);
+        long toKey = birthDateKey(toDate.toEpochDay(), 0);
+        if (after != null) {
+            fromKey = Math.max(fromKey,
+                    birthDateKey(after.birthDate().toEpochDay(), after.id()) + 1);
+        }
+        lock.readLock().lock();
+        try {
+            return Arrays.stream(scan(fromKey, toKey))
+                    .limit(limit)
+                    .mapToObj(key -> user(rowsById[(int) key]))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return liveRows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            reset(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void store(User user) {
+        int previous = rowOf(user.getId());
+        if (previous != NO_ROW) {
+            kill(previous);
+        }
+        int row = append(user);
+        indexId(user.getId(), row);
+        indexEmail(row);
+        compactIfSparse();
+    }
+
+    private long[] scan(long fromKey, long toKey) {
+        if (fromKey >= toKey) {
+            return new long[0];
+        }
+        long[] words = new long[(rows + Long.SIZE - 1) / Long.SIZE];
+        scanner.scan(birthDays, rows, EpochDayPredicate.between(fromKey >> Integer.SIZE,
+                (toKey - 1) >> Integer.SIZE), words);
+        BitSet matches = BitSet.valueOf(words);
+        matches.and(live);
+        long[] keys = new long[matches.cardinality()];
+        int found = 0;
+        for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+            long key = birthDateKey(birthDays[row], ids[row]);
+            if (key >= fromKey && key < toKey) {
+                keys[found++] = key;
+            }
+        }
+        keys = Arrays.copyOf(keys, found);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private int append(User user) {
+        if (rows == ids.length) {
+            ids = Arrays.copyOf(ids, rows * 2);
+            birthDays = Arrays.copyOf(birthDays, rows * 2);
+            versions = Arrays.copyOf(versions, rows * 2);
+        }
+        ids[rows] = user.getId();
+        birthDays[rows] = Math.toIntExact(user.getBirthDate().toEpochDay());
+        versions[rows] = user.getVersion();
+        emails.append(user.getEmail());
+        String emailKey = Emails.normalize(user.getEmail());
+        emailKeys.append(Objects.equals(emailKey, user.getEmail()) ? null : emailKey);
+        firstNames.append(user.getFirstName());
+        lastNames.append(user.getLastName());
+        addresses.append(user.getAddress());
+        phoneNumbers.append(user.getPhoneNumber());
+        live.set(rows);
+        liveRows++;
+        return rows++;
+    }
+
+    private void kill(int row) {
+        unindexEmail(row);
+        live.clear(row);
+        liveRows--;
+    }
+
+    private User user(int row) {
+        return User.builder()
+                .id(ids[row])
+                .birthDate(LocalDate.ofEpochDay(birthDays[row]))
+                .email(emails.get(row))
+                .firstName(firstNames.get(row))
+                .lastName(lastNames.get(row))
+                .address(addresses.get(row))
+                .phoneNumber(phoneNumbers.get(row))
+                .version(versions[row])
+                .build();
+    }
+
+    private int rowOf(int id) {
+        return id >= 0 && id < rowsById.length ? rowsById[id] : NO_ROW;
+    }
+
+    private void indexId(int id, int row) {
+        if (id >= rowsById.length) {
+            int length = rowsById.length;
+            rowsById = Arrays.copyOf(rowsById, Math.max(id + 1, length * 2));
+            Arrays.fill(rowsById, length, rowsById.length, NO_ROW);
+        }
+        rowsById[id] = row;
+    }
+
+    private void indexEmail(int row) {
+        if ((liveRows + 1) * 2L > emailTable.length) {
+            rebuildEmailTable(emailTable.length * 2);
+        }
+        emailTable[emailSlot(row)] = row;
+    }
+
+    private void unindexEmail(int row) {
+        int slot = emailSlot(row);
+        if (emailTable[slot] != row) {
+            return;
+        }
+        int mask = emailTable.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; emailTable[next] != NO_ROW; next = (next + 1) & mask) {
+            int home = emailKeyColumn(emailTable[next]).hashAt(emailTable[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                emailTable[hole] = emailTable[next];
+                hole = next;
+            }
+        }
+        emailTable[hole] = NO_ROW;
+    }
+
+    private int emailSlot(byte[] emailKey) {
+        return emailSlot(Utf8Column.hash(emailKey, 0, emailKey.length),
+                candidate -> emailKeyColumn(candidate).equalsAt(candidate, emailKey));
+    }
+
+    private int emailSlot(int row) {
+        Utf8Column keys = emailKeyColumn(row);
+        return emailSlot(keys.hashAt(row),
+                candidate -> emailKeyColumn(candidate).equalsAt(candidate, keys, row));
+    }
+
+    private int emailSlot(int hash, IntPredicate matches) {
+        int mask = emailTable.length - 1;
+        int slot = hash & mask;
+        while (emailTable[slot] != NO_ROW && !matches.test(emailTable[slot])) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private Utf8Column emailKeyColumn(int row) {
+        return emailKeys.isNull(row) ? emails : emailKeys;
+    }
+
+    private void rebuildEmailTable(int capacity) {
+        emailTable = new int[capacity];
+        Arrays.fill(emailTable, NO_ROW);
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            emailTable[emailSlot(row)] = row;
+        }
+    }
+
+    private void compactIfSparse() {
+        if (rows < INITIAL_CAPACITY || rows - liveRows <= liveRows) {
+            return;
+        }
+        int[] oldIds = ids;
+        int[] oldBirthDays = birthDays;
+        long[] oldVersions = versions;
+        Utf8Column[] oldColumns = {emails, emailKeys, firstNames, lastNames, addresses,
+            phoneNumbers};
+        BitSet oldLive = live;
+        reset(Math.max(INITIAL_CAPACITY, liveRows * 2));
+        for (int row = oldLive.nextSetBit(0); row >= 0; row = oldLive.nextSetBit(row + 1)) {
+            ids[rows] = oldIds[row];
+            birthDays[rows] = oldBirthDays[row];
+            versions[rows] = oldVersions[row];
+            Utf8Column[] columns = {emails, emailKeys, firstNames, lastNames, addresses,
+                phoneNumbers};
+            for (int column = 0; column < columns.length; column++) {
+                columns[column].appendFrom(oldColumns[column], row);
+            }
+            live.set(rows);
+            indexId(ids[rows], rows);
+            rows++;
+            liveRows++;
+        }
+        rebuildEmailTable(emailTable.length);
+    }
+
+    private void reset(int capacity) {
+        ids = new int[capacity];
+        birthDays = new int[capacity];
+        versions = new long[capacity];
+        emails = new Utf8Column(capacity);
+        emailKeys = new Utf8Column(capacity);
+        firstNames = new Utf8Column(capacity);
+        lastNames = new Utf8Column(capacity);
+        addresses = new Utf8Column(capacity);
+        phoneNumbers = new Utf8Column(capacity);
+        live = new BitSet(capacity);
+        rows = 0;
+        liveRows = 0;
+        rowsById = new int[capacity];
+        Arrays.fill(rowsById, NO_ROW);
+        emailTable = new int[Integer.highestOneBit(capacity) * 4];
+        Arrays.fill(emailTable, NO_ROW);
+    }
+
+    private static long birthDateKey(long epochDay, int id) {
+        return (epochDay << Integer.SIZE) | Integer.toUnsignedLong(id);
+    }
+
+    private class UserIterator implements Iterator<User> {
+        private final int lastId;
+        private int id;
+        private User next;
+
+        UserIterator(int lastId) {
+            this.lastId = lastId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && id < lastId) {
+                next = findById(++id).orElse(null);
+            }
+            return next != null;
+        }
+
+        @Override
+        public User next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            User user = next;
+            next = null;
+            return user;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.repository.impl;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.BirthDateCursor;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.util.Emails;
+
+/**
+ * Puts a {@link ScalableBloomFilter} of normalized emails in front of another repository's
+ * email index. Most registrations are for new emails, and a definite "no" from the filter
+ * answers {@link #existsByEmail} without touching the index, which for a sharded store means
+ * asking every shard.
+ *
+ * <p>A key is added to the filter before the user is saved and again afterwards, so no reader
+ * can find a saved user whose email the filter misses. Deleted or replaced emails stay in the
+ * filter as stale keys; once they make up a quarter of it, a fresh filter is built from the
+ * store on a background thread. Saves during the rebuild go into both filters, and the new
+ * filter is swapped in only once no save is between its two adds: a save that added its key
+ * to the old filter alone would otherwise become visible while the new one misses it.
+ */
+@Slf4j
+public class EmailFilteredUserRepository implements UserRepository, AutoCloseable {
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_STALE_KEYS = 1024;
+    private static final int STALE_KEYS_SHARE = 4;
+    private final UserRepository delegate;
+    private final ExecutorService rebuilder;
+    private final AtomicInteger staleKeys = new AtomicInteger();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile ScalableBloomFilter filter = newFilter(INITIAL_CAPACITY);
+    private volatile ScalableBloomFilter rebuilding;
+
+    public EmailFilteredUserRepository(UserRepository delegate) {
+        this.delegate = delegate;
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-filter-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int nextId() {
+        return delegate.nextId();
+    }
+
+    @Override
+    public int lastId() {
+        return delegate.lastId();
+    }
+
+    @Override
+    public void reserveIdsThrough(int lastId) {
+        delegate.reserveIdsThrough(lastId);
+    }
+
+    @Override
+    public User save(User user) {
+        String key = Emails.normalize(user.getEmail());
+        Optional<User> previous;
+        swapLock.readLock().lock();
+        try {
+            filter.add(key);
+            previous = delegate.findById(user.getId());
+            delegate.save(user);
+            added(key);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        previous.filter(replaced -> !key.equals(Emails.normalize(replaced.getEmail())))
+                .ifPresent(replaced -> stale());
+        return user;
+    }
+
+    @Override
+    public void saveAll(Collection<User> users) {
+        List<String> keys = users.stream().map(user -> Emails.normalize(user.getEmail()))
+                .toList();
+        List<User> previous;
+        swapLock.readLock().lock();
+        try {
+            keys.forEach(filter::add);
+            previous = users.stream()
+                    .map(user -> delegate.findById(user.getId()))
+                    .flatMap(Optional::stream)
+                    .toList();
+            delegate.saveAll(users);
+            keys.forEach(this::added);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        previous.forEach(replaced -> stale());
+    }
+
+    @Override
+    public Optional<User> findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return filter.mightContain(Emails.normalize(email))
+                ? delegate.findByEmail(email) : Optional.empty();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return filter.mightContain(Emails.normalize(email)) && delegate.existsByEmail(email);
+    }
+
+    @Override
+    public Optional<User> deleteById(int id) {
+        Optional<User> removed = delegate.deleteById(id);
+        removed.ifPresent(user -> stale());
+        return removed;
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate) {
+        return delegate.findAllByBirthDateBetween(fromDate, toDate);
+    }
+
+    @Override
+    public List<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate,
+                                                BirthDateCursor after, int limit) {
+        return delegate.findAllByBirthDateBetween(fromDate, toDate, after, limit);
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void deleteAll() {
+        delegate.deleteAll();
+        swap(newFilter(INITIAL_CAPACITY));
+        staleKeys.set(0);
+    }
+
+    /**
+     * Builds a fresh filter from the store and swaps it in. Runs on the rebuilder thread once
+     * enough keys are stale; public so that tests and tools can force one.
+     */
+    public void rebuild() {
+        final int staleAtStart = staleKeys.get();
+        ScalableBloomFilter next = newFilter(Math.max(INITIAL_CAPACITY, delegate.count()));
+        rebuilding = next;
+        for (User user : delegate.findAll()) {
+            next.add(Emails.normalize(user.getEmail()));
+        }
+        swap(next);
+        staleKeys.addAndGet(-staleAtStart);
+        log.info("Rebuilt the email filter with {} keys", next.size());
+    }
+
+    @Override
+    public void close() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Makes {@code next} the filter once every save in progress has added its key to it.
+     */
+    private void swap(ScalableBloomFilter next) {
+        swapLock.writeLock().lock();
+        try {
+            filter = next;
+            rebuilding = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a saved key to the filter being rebuilt, then to the current one.
+     */
+    private void added(String key) {
+        ScalableBloomFilter next = rebuilding;
+        if (next != null) {
+            next.add(key);
+        }
+        filter.add(key);
+    }
+
+    private void stale() {
+        int stale = staleKeys.incrementAndGet();
+        if (stale >= MIN_STALE_KEYS && stale * STALE_KEYS_SHARE >= filter.size()
+                && rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Can't rebuild the email filter, keeping the current one", e);
+                } finally {
+                    rebuildScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private static ScalableBloomFilter newFilter(int capacity) {
+        return new ScalableBloomFilter(capacity, FALSE_POSITIVE_RATE);
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.repository.impl;
+
+import java.util.Arrays;
+
+/**
+ * A set of inclusive epoch-day ranges, optionally negated, that {@link EpochDayScanner}
+ * evaluates over a birthdate column.
+ */
+public final class EpochDayPredicate {
+    private final int[] froms;
+    private final int[] tos;
+    private final boolean negated;
+
+    private EpochDayPredicate(int[] froms, int[] tos, boolean negated) {
+        this.froms = froms;
+        this.tos = tos;
+        this.negated = negated;
+    }
+
+    public static EpochDayPredicate between(long fromDay, long toDay) {
+        return new EpochDayPredicate(new int[] {clamp(fromDay)}, new int[] {clamp(toDay)}, false);
+    }
+
+    public EpochDayPredicate or(long fromDay, long toDay) {
+        int ranges = froms.length;
+        int[] widenedFroms = Arrays.copyOf(froms, ranges + 1);
+        int[] widenedTos = Arrays.copyOf(tos, ranges + 1);
+        widenedFroms[ranges] = clamp(fromDay);
+        widenedTos[ranges] = clamp(toDay);
+        return new EpochDayPredicate(widenedFroms, widenedTos, negated);
+    }
+
+    public EpochDayPredicate negate() {
+        return new EpochDayPredicate(froms, tos, !negated);
+    }
+
+    public boolean test(int day) {
+        for (int range = 0; range < froms.length; range++) {
+            if (day >= froms[range] && day <= tos[range]) {
+                return !negated;
+            }
+        }
+        return negated;
+    }
+
+    int ranges() {
+        return froms.length;
+    }
+
+    int from(int range) {
+        return froms[range];
+    }
+
+    int to(int range) {
+        return tos[range];
+    }
+
+    boolean negated() {
+        return negated;
+    }
+
+    private static int clamp(long day) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, day));
+    }
+}
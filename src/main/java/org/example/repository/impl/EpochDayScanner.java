@@ -0,0 +1,30 @@
+package org.example.repository.impl;
+
+/**
+ * Evaluates an {@link EpochDayPredicate} over a packed {@code int} epoch-day column into a
+ * bitmap, one bit per row in {@link java.util.BitSet#valueOf(long[])} order.
+ */
+public interface EpochDayScanner {
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Sets the bit of every row below {@code rows} whose day matches the predicate; bits of
+     * other rows are left as they are.
+     */
+    void scan(int[] days, int rows, EpochDayPredicate predicate, long[] matches);
+
+    /**
+     * The SIMD scanner when the JVM was started with {@code --add-modules jdk.incubator.vector},
+     * the scalar one otherwise.
+     */
+    static EpochDayScanner create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return new VectorEpochDayScanner();
+            } catch (LinkageError e) {
+                return new ScalarEpochDayScanner();
+            }
+        }
+        return new ScalarEpochDayScanner();
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.repository.impl;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.example.model.BirthDateCursor;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.util.Emails;
+
+public class InMemoryUserRepository implements UserRepository {
+    private final Map<Integer, User> usersById = new ConcurrentHashMap<>();
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, User> usersByBirthDate = new ConcurrentSkipListMap<>();
+    private final AtomicInteger idSequence = new AtomicInteger();
+
+    @Override
+    public int nextId() {
+        return idSequence.incrementAndGet();
+    }
+
+    @Override
+    public int lastId() {
+        return idSequence.get();
+    }
+
+    @Override
+    public void reserveIdsThrough(int lastId) {
+        idSequence.accumulateAndGet(lastId, Math::max);
+    }
+
+    @Override
+    public User save(User user) {
+        usersById.compute(user.getId(), (id, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(user);
+            return user;
+        });
+        idSequence.accumulateAndGet(user.getId(), Math::max);
+        return user;
+    }
+
+    @Override
+    public void saveAll(Collection<User> users) {
+        users.forEach(this::save);
+    }
+
+    @Override
+    public Optional<User> findById(int id) {
+        return Optional.ofNullable(usersById.get(id));
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(usersByEmail.get(Emails.normalize(email)));
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return usersByEmail.containsKey(Emails.normalize(email));
+    }
+
+    @Override
+    public Optional<User> deleteById(int id) {
+        User[] removed = new User[1];
+        usersById.computeIfPresent(id, (key, existing) -> {
+            unindex(existing);
+            removed[0] = existing;
+            return null;
+        });
+        return Optional.ofNullable(removed[0]);
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return Collections.unmodifiableCollection(usersById.values());
+    }
+
+    @Override
+    public Stream<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate) {
+        long fromKey = birthDateKey(fromDate.toEpochDay() + 1, 0);
+        long toKey = birthDateKey(toDate.toEpochDay(), 0);
+        if (fromKey >= toKey) {
+            return Stream.empty();
+        }
+        return usersByBirthDate.subMap(fromKey, true, toKey, false).values().stream();
+    }
+
+    @Override
+    public List<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate,
+                                                BirthDateCursor after, int limit) {
+        long fromKey = birthDateKey(fromDate.toEpochDay() + 1, 0);
+        long toKey = birthDateKey(toDate.toEpochDay(), 0);
+        boolean fromInclusive = true;
+        if (after != null) {
+            long afterKey = birthDateKey(after.birthDate().toEpochDay(), after.id());
+            if (afterKey >= fromKey) {
+                fromKey = afterKey;
+                fromInclusive = false;
+            }
+        }
+        if (fromKey >= toKey) {
+            return List.of();
+        }
+        return usersByBirthDate.subMap(fromKey, fromInclusive, toKey, false).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public int count() {
+        return usersById.size();
+    }
+
+    @Override
+    public void deleteAll() {
+        usersById.clear();
+        usersByEmail.clear();
+        usersByBirthDate.clear();
+    }
+
+    private void index(User user) {
+        usersByEmail.put(Emails.normalize(user.getEmail()), user);
+        usersByBirthDate.put(birthDateKey(user), user);
+    }
+
+    private void unindex(User user) {
+        usersByEmail.remove(Emails.normalize(user.getEmail()), user);
+        usersByBirthDate.remove(birthDateKey(user), user);
+    }
+
+    private static long birthDateKey(User user) {
+        return birthDateKey(user.getBirthDate().toEpochDay(), user.getId());
+    }
+
+    private static long birthDateKey(long epochDay, int id) {
+        return (epochDay << Integer.SIZE) | Integer.toUnsignedLong(id);
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.repository.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter that grows with its keys (Almeida et al., "Scalable Bloom
+ * Filters"). Keys go into the newest slice; once it holds the number of keys it was sized for,
+ * a slice twice as large with half the false-positive rate is added. The rates form a
+ * geometric series, so the overall rate stays under the target however many keys arrive.
+ * Keys can't be removed. Adding a key that already tests positive changes nothing, so saving
+ * the same key again doesn't use up capacity.
+ */
+final class ScalableBloomFilter {
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final double LN2 = Math.log(2);
+    private volatile Slice[] slices;
+
+    ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+        slices = new Slice[] {
+                new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO))
+        };
+    }
+
+    void add(String key) {
+        long hash = hash(key);
+        if (mightContain(hash)) {
+            return;
+        }
+        Slice[] current = slices;
+        Slice newest = current[current.length - 1];
+        if (newest.isFull()) {
+            newest = grow(newest);
+        }
+        newest.add(hash);
+    }
+
+    boolean mightContain(String key) {
+        return mightContain(hash(key));
+    }
+
+    private boolean mightContain(long hash) {
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        int size = 0;
+        for (Slice slice : slices) {
+            size += slice.keys.get();
+        }
+        return size;
+    }
+
+    private synchronized Slice grow(Slice full) {
+        Slice[] current = slices;
+        Slice newest = current[current.length - 1];
+        if (newest == full) {
+            newest = new Slice(full.capacity * GROWTH, full.falsePositiveRate * TIGHTENING_RATIO);
+            Slice[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = newest;
+            slices = grown;
+        }
+        return newest;
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's chars with a MurmurHash3 finalizer; the two halves drive
+     * double hashing of the bit positions.
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class Slice {
+        private final int capacity;
+        private final double falsePositiveRate;
+        private final AtomicLongArray words;
+        private final long mask;
+        private final int hashes;
+        private final AtomicInteger keys = new AtomicInteger();
+
+        Slice(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double bits = -capacity * Math.log(falsePositiveRate) / (LN2 * LN2);
+            long size = Math.max(Long.SIZE, Long.highestOneBit((long) Math.ceil(bits) - 1) << 1);
+            this.words = new AtomicLongArray(Math.toIntExact(size / Long.SIZE));
+            this.mask = size - 1;
+            this.hashes = Math.max(1, (int) Math.round(bits / capacity * LN2));
+        }
+
+        boolean isFull() {
+            return keys.get() >= capacity;
+        }
+
+        void add(long hash) {
+            int first = (int) hash;
+            int second = (int) (hash >>> Integer.SIZE) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (first + (long) i * second) & mask;
+                long word = 1L << bit;
+                int index = (int) (bit >>> 6);
+                if ((words.get(index) & word) == 0) {
+                    words.getAndAccumulate(index, word, (current, set) -> current | set);
+                }
+            }
+            keys.incrementAndGet();
+        }
+
+        boolean mightContain(long hash) {
+            int first = (int) hash;
+            int second = (int) (hash >>> Integer.SIZE) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (first + (long) i * second) & mask;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.repository.impl;
+
+public class ScalarEpochDayScanner implements EpochDayScanner {
+    @Override
+    public void scan(int[] days, int rows, EpochDayPredicate predicate, long[] matches) {
+        for (int row = 0; row < rows; row++) {
+            if (predicate.test(days[row])) {
+                matches[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+}
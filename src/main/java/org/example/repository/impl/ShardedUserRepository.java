@@ -0,0 +1,249 @@
+package org.example.repository.impl;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.example.model.BirthDateCursor;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+
+/**
+ * Partitions users over independent repositories by id, so writers to different shards share
+ * no map, lock or column. Email lookups ask every shard in turn. Birthdate page searches fork
+ * one task per shard on a {@link ForkJoinPool} and merge the sorted shard results pairwise on
+ * the way back up; birthdate streams merge the shards' own streams lazily. Both keep the
+ * (birthdate, id) order of a single repository.
+ */
+public class ShardedUserRepository implements UserRepository {
+    private static final Comparator<User> BIRTH_DATE_ORDER = Comparator
+            .comparing(User::getBirthDate)
+            .thenComparingInt(User::getId);
+    private final List<UserRepository> shards;
+    private final ForkJoinPool pool;
+    private final AtomicInteger idSequence = new AtomicInteger();
+
+    public ShardedUserRepository(int shardCount, Supplier<UserRepository> shardFactory) {
+        this(shardCount, shardFactory, ForkJoinPool.commonPool());
+    }
+
+    public ShardedUserRepository(int shardCount, Supplier<UserRepository> shardFactory,
+                                 ForkJoinPool pool) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        this.shards = Stream.generate(shardFactory).limit(shardCount).toList();
+        this.pool = pool;
+    }
+
+    @Override
+    public int nextId() {
+        return idSequence.incrementAndGet();
+    }
+
+    @Override
+    public int lastId() {
+        return idSequence.get();
+    }
+
+    @Override
+    public void reserveIdsThrough(int lastId) {
+        idSequence.accumulateAndGet(lastId, Math::max);
+    }
+
+    @Override
+    public User save(User user) {
+        shard(user.getId()).save(user);
+        idSequence.accumulateAndGet(user.getId(), Math::max);
+        return user;
+    }
+
+    @Override
+    public void saveAll(Collection<User> users) {
+        users.stream()
+                .collect(Collectors.groupingBy(user -> shardIndex(user.getId())))
+                .forEach((shard, shardUsers) -> shards.get(shard).saveAll(shardUsers));
+        users.forEach(user -> idSequence.accumulateAndGet(user.getId(), Math::max));
+    }
+
+    @Override
+    public Optional<User> findById(int id) {
+        return shard(id).findById(id);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        for (UserRepository shard : shards) {
+            Optional<User> user = shard.findByEmail(email);
+            if (user.isPresent()) {
+                return user;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return shards.stream().anyMatch(shard -> shard.existsByEmail(email));
+    }
+
+    @Override
+    public Optional<User> deleteById(int id) {
+        return shard(id).deleteById(id);
+    }
+
+    @Override
+    public Collection<User> findAll() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<User> iterator() {
+                return shards.stream()
+                        .flatMap(shard -> shard.findAll().stream())
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return count();
+            }
+        };
+    }
+
+    /**
+     * Merges the shards' streams as it is read, holding one pending user per shard, so a wide
+     * range takes no more memory than it does in the shards themselves.
+     */
+    @Override
+    public Stream<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate) {
+        List<Stream<User>> streams = shards.stream()
+                .map(shard -> shard.findAllByBirthDateBetween(fromDate, toDate))
+                .toList();
+        Iterator<User> merged = new MergingIterator(streams.stream()
+                .map(Stream::iterator)
+                .toList());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    @Override
+    public List<User> findAllByBirthDateBetween(LocalDate fromDate, LocalDate toDate,
+                                                BirthDateCursor after, int limit) {
+        return pool.invoke(new SearchTask(0, shards.size(), limit,
+                shard -> shard.findAllByBirthDateBetween(fromDate, toDate, after, limit)));
+    }
+
+    @Override
+    public int count() {
+        return shards.stream().mapToInt(UserRepository::count).sum();
+    }
+
+    @Override
+    public void deleteAll() {
+        shards.forEach(UserRepository::deleteAll);
+    }
+
+    private UserRepository shard(int id) {
+        return shards.get(shardIndex(id));
+    }
+
+    private int shardIndex(int id) {
+        return Math.floorMod(id, shards.size());
+    }
+
+    private static List<User> merge(List<User> left, List<User> right, int limit) {
+        List<User> merged = new ArrayList<>(Math.min(limit, left.size() + right.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < left.size() || j < right.size())) {
+            if (j == right.size()
+                    || i < left.size() && BIRTH_DATE_ORDER.compare(left.get(i), right.get(j)) < 0) {
+                merged.add(left.get(i++));
+            } else {
+                merged.add(right.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * K-way merge of sorted iterators: a heap holds the next user of every iterator that still
+     * has one.
+     */
+    private static final class MergingIterator implements Iterator<User> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(
+                Comparator.comparing(Head::user, BIRTH_DATE_ORDER));
+
+        private MergingIterator(List<Iterator<User>> sources) {
+            sources.forEach(this::advance);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public User next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head.rest());
+            return head.user();
+        }
+
+        private void advance(Iterator<User> source) {
+            if (source.hasNext()) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+
+        private record Head(User user, Iterator<User> rest) {
+        }
+    }
+
+    private class SearchTask extends RecursiveTask<List<User>> {
+        private static final long serialVersionUID = 1L;
+        private final int fromShard;
+        private final int toShard;
+        private final int limit;
+        private final Function<UserRepository, List<User>> search;
+
+        SearchTask(int fromShard, int toShard, int limit,
+                   Function<UserRepository, List<User>> search) {
+            this.fromShard = fromShard;
+            this.toShard = toShard;
+            this.limit = limit;
+            this.search = search;
+        }
+
+        @Override
+        protected List<User> compute() {
+            if (toShard - fromShard == 1) {
+                return search.apply(shards.get(fromShard));
+            }
+            int middle = (fromShard + toShard) >>> 1;
+            SearchTask left = new SearchTask(fromShard, middle, limit, search);
+            left.fork();
+            List<User> right = new SearchTask(middle, toShard, limit, search).compute();
+            return merge(left.join(), right, limit);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.repository.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Append-only string column: the UTF-8 bytes of every row packed into one arena, with row
+ * {@code i} spanning {@code [offsets[i], offsets[i + 1])}. Rows are never rewritten; the
+ * owning store appends a new row on update and compacts the column once enough rows are dead.
+ */
+final class Utf8Column {
+    private static final int INITIAL_ARENA_SIZE = 1024;
+    private byte[] arena = new byte[INITIAL_ARENA_SIZE];
+    private int[] offsets;
+    private final BitSet nulls = new BitSet();
+    private int rows;
+
+    Utf8Column(int capacity) {
+        offsets = new int[capacity + 1];
+    }
+
+    int append(String value) {
+        if (value == null) {
+            nulls.set(rows);
+            return appendBytes(null, 0, 0);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return appendBytes(bytes, 0, bytes.length);
+    }
+
+    int appendFrom(Utf8Column source, int row) {
+        if (source.nulls.get(row)) {
+            nulls.set(rows);
+            return appendBytes(null, 0, 0);
+        }
+        return appendBytes(source.arena, source.offsets[row], source.length(row));
+    }
+
+    String get(int row) {
+        if (nulls.get(row)) {
+            return null;
+        }
+        return new String(arena, offsets[row], length(row), StandardCharsets.UTF_8);
+    }
+
+    boolean equalsAt(int row, byte[] value) {
+        int start = offsets[row];
+        return !nulls.get(row)
+                && Arrays.equals(arena, start, offsets[row + 1], value, 0, value.length);
+    }
+
+    boolean equalsAt(int row, Utf8Column other, int otherRow) {
+        return nulls.get(row) == other.nulls.get(otherRow)
+                && Arrays.equals(arena, offsets[row], offsets[row + 1],
+                other.arena, other.offsets[otherRow], other.offsets[otherRow + 1]);
+    }
+
+    boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    int hashAt(int row) {
+        return hash(arena, offsets[row], offsets[row + 1]);
+    }
+
+    static int hash(byte[] bytes, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private int length(int row) {
+        return offsets[row + 1] - offsets[row];
+    }
+
+    private int appendBytes(byte[] bytes, int from, int length) {
+        if (rows + 1 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        int start = offsets[rows];
+        if (start + length > arena.length) {
+            long grown = Math.max((long) arena.length * 2, (long) start + length);
+            if (grown > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("String column is full");
+            }
+            arena = Arrays.copyOf(arena, (int) grown);
+        }
+        if (length > 0) {
+            System.arraycopy(bytes, from, arena, start, length);
+        }
+        offsets[rows + 1] = start + length;
+        return rows++;
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.repository.impl;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares a whole register of epoch days against every range per step and writes the lane
+ * mask straight into the bitmap. The species has at most 16 int lanes, so a mask never
+ * straddles two bitmap words. Rows past the last full register are handled one by one.
+ */
+public class VectorEpochDayScanner implements EpochDayScanner {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void scan(int[] days, int rows, EpochDayPredicate predicate, long[] matches) {
+        int ranges = predicate.ranges();
+        IntVector[] froms = new IntVector[ranges];
+        IntVector[] tos = new IntVector[ranges];
+        for (int range = 0; range < ranges; range++) {
+            froms[range] = IntVector.broadcast(SPECIES, predicate.from(range));
+            tos[range] = IntVector.broadcast(SPECIES, predicate.to(range));
+        }
+        int lanes = SPECIES.length();
+        int vectorRows = SPECIES.loopBound(rows);
+        int row = 0;
+        for (; row < vectorRows; row += lanes) {
+            IntVector day = IntVector.fromArray(SPECIES, days, row);
+            VectorMask<Integer> match = day.compare(VectorOperators.GE, froms[0])
+                    .and(day.compare(VectorOperators.LE, tos[0]));
+            for (int range = 1; range < ranges; range++) {
+                match = match.or(day.compare(VectorOperators.GE, froms[range])
+                        .and(day.compare(VectorOperators.LE, tos[range])));
+            }
+            if (predicate.negated()) {
+                match = match.not();
+            }
+            matches[row >>> 6] |= match.toLong() << row;
+        }
+        for (; row < rows; row++) {
+            if (predicate.test(days[row])) {
+                matches[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.service;
+
+import java.time.LocalDate;
+import org.example.dto.UserAggregatesDto;
+
+public interface UserAggregatesService {
+    default UserAggregatesDto getAggregates() {
+        return getAggregates(LocalDate.now());
+    }
+
+    /**
+     * Users per birth year and per age bracket, with ages as of {@code today}.
+     */
+    UserAggregatesDto getAggregates(LocalDate today);
+}
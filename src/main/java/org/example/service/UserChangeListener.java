@@ -0,0 +1,26 @@
+package org.example.service;
+
+import org.example.model.User;
+
+/**
+ * Told about every change {@link UserService} applies, after it is visible in the repository.
+ * Changes to one user are reported in the order they were applied.
+ */
+public interface UserChangeListener {
+    /**
+     * @param before the user before the change, or null when it was registered
+     * @param after the user after the change, or null when it was deleted
+     */
+    void onChange(User before, User after);
+
+    /**
+     * Told when a change that was already visible in the repository could not be logged and
+     * has been undone. No {@link #onChange} was reported for it, but whatever was read from
+     * the repository in the meantime may hold it.
+     *
+     * @param undone the user as the undone change left it, or null when it deleted the user
+     * @param restored the user as restored, or null when the change registered it
+     */
+    default void onUndo(User undone, User restored) {
+    }
+}
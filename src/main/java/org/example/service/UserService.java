@@ -3,17 +3,58 @@ package org.example.service;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
+import org.example.dto.BatchRegistrationResultDto;
+import org.example.dto.UserPageResponseDto;
+import org.example.dto.UserQueryRequestDto;
+import org.example.dto.UserQueryResponseDto;
 import org.example.dto.UserRegistrationRequestDto;
 import org.example.dto.UserResponseDto;
 
 public interface UserService {
     UserResponseDto register(UserRegistrationRequestDto requestDto);
 
-    UserResponseDto updateUserInfo(int id, UserRegistrationRequestDto requestDto);
+    UserResponseDto getUser(int id);
 
-    UserResponseDto updateUserInfoPartially(int id, Map<String, Object> fields);
+    List<BatchRegistrationResultDto> registerAll(List<UserRegistrationRequestDto> requestDtos);
+
+    default UserResponseDto updateUserInfo(int id, UserRegistrationRequestDto requestDto) {
+        return updateUserInfo(id, requestDto, null);
+    }
+
+    /**
+     * Replaces the user's fields. When {@code expectedVersion} is not null the update only
+     * applies to that version of the user and fails with
+     * {@link org.example.exception.VersionConflictException} otherwise.
+     */
+    UserResponseDto updateUserInfo(int id, UserRegistrationRequestDto requestDto,
+                                   Long expectedVersion);
+
+    default UserResponseDto updateUserInfoPartially(int id, Map<String, Object> fields) {
+        return updateUserInfoPartially(id, fields, null);
+    }
+
+    UserResponseDto updateUserInfoPartially(int id, Map<String, Object> fields,
+                                            Long expectedVersion);
 
     void deleteUser(int id);
 
     List<UserResponseDto> searchByBirthDateRange(LocalDate fromDate, LocalDate toDate);
+
+    UserPageResponseDto searchByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+                                               String pageToken, int pageSize);
+
+    Stream<UserResponseDto> streamByBirthDateRange(LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * Up to {@code limit} users whose first or last name starts with {@code prefix}, ignoring
+     * case, ordered by that name.
+     */
+    List<UserResponseDto> searchByNamePrefix(String prefix, int limit);
+
+    /**
+     * Users matching every filter of the request, driven by the most selective index. The plan
+     * is included in the response when the request asks for it.
+     */
+    UserQueryResponseDto query(UserQueryRequestDto requestDto);
 }
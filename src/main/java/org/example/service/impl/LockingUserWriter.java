@@ -0,0 +1,213 @@
+package org.example.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.example.exception.EntityNotFoundException;
+import org.example.exception.RegistrationException;
+import org.example.exception.VersionConflictException;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.service.UserChangeListener;
+import org.example.storage.LogRecord;
+import org.example.storage.WriteAheadLog;
+import org.example.util.Emails;
+import org.example.util.StripedLock;
+
+/**
+ * Applies each mutation on the caller's thread. Striped email locks keep two mutations from
+ * taking the same email, and striped id locks order the saves, log appends and listener
+ * notifications of one user. A change whose log write fails is undone before the caller gets
+ * the failure.
+ */
+public class LockingUserWriter implements UserWriter {
+    private static final int EMAIL_LOCK_STRIPES = 256;
+    private static final int ID_LOCK_STRIPES = 256;
+    private final StripedLock emailLocks = new StripedLock(EMAIL_LOCK_STRIPES);
+    private final StripedLock idLocks = new StripedLock(ID_LOCK_STRIPES);
+    private final UserRepository userRepository;
+    private final WriteAheadLog writeAheadLog;
+    private final List<UserChangeListener> changeListeners;
+
+    public LockingUserWriter(UserRepository userRepository, WriteAheadLog writeAheadLog,
+                             List<UserChangeListener> changeListeners) {
+        this.userRepository = userRepository;
+        this.writeAheadLog = writeAheadLog;
+        this.changeListeners = changeListeners;
+    }
+
+    @Override
+    public User insert(User user) {
+        return withEmailLock(user.getEmail(), () -> {
+            if (userRepository.existsByEmail(user.getEmail())) {
+                throw new RegistrationException("Can't register user");
+            }
+            User insertedUser = user.toBuilder()
+                    .id(userRepository.nextId())
+                    .version(FIRST_VERSION)
+                    .build();
+            compareAndSave(FIRST_VERSION, insertedUser);
+            return insertedUser;
+        });
+    }
+
+    @Override
+    public List<User> insertAll(Collection<User> users) {
+        List<Lock> locks = emailLocks.getAll(users.stream()
+                .map(user -> Emails.normalize(user.getEmail()))
+                .toList());
+        List<User> inserted;
+        locks.forEach(Lock::lock);
+        try {
+            inserted = users.stream()
+                    .filter(user -> !userRepository.existsByEmail(user.getEmail()))
+                    .map(user -> user.toBuilder()
+                            .id(userRepository.nextId())
+                            .version(FIRST_VERSION)
+                            .build())
+                    .toList();
+            saveAll(inserted);
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+        return inserted;
+    }
+
+    /**
+     * Optimistically builds the next version of the user from a snapshot read without locks,
+     * then commits it only if the user is still at that snapshot's version. A commit that
+     * loses to a concurrent writer is rebuilt from the new snapshot, unless the caller asked
+     * for a specific version.
+     */
+    @Override
+    public User update(int id, Long expectedVersion, String email, UnaryOperator<User> change) {
+        Supplier<User> update = () -> {
+            while (true) {
+                User existingUser = userRepository.findById(id).orElseThrow(
+                        () -> new EntityNotFoundException("Can't find and update user by id: "
+                                + id)
+                );
+                if (expectedVersion != null && existingUser.getVersion() != expectedVersion) {
+                    throw new VersionConflictException("User " + id + " is at version "
+                            + existingUser.getVersion() + ", not " + expectedVersion);
+                }
+                User updatedUser = change.apply(existingUser).toBuilder()
+                        .version(existingUser.getVersion() + 1)
+                        .build();
+                if (compareAndSave(existingUser.getVersion(), updatedUser)) {
+                    return updatedUser;
+                }
+            }
+        };
+        return email == null ? update.get() : withEmailLock(email, update);
+    }
+
+    @Override
+    public User delete(int id) {
+        Lock lock = idLocks.get(id);
+        lock.lock();
+        try {
+            User deletedUser = userRepository.deleteById(id).orElseThrow(
+                    () -> new EntityNotFoundException("Can't find and delete user by id: " + id)
+            );
+            try {
+                commit(writeAheadLog.append(LogRecord.delete(id)));
+            } catch (RuntimeException e) {
+                undo(null, deletedUser);
+                throw e;
+            }
+            notifyListeners(deletedUser, null);
+            return deletedUser;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saves the user if the stored copy is at {@code expectedVersion} (or absent, for a new
+     * user). The check, the save, the log append, the wait for its group commit and the
+     * listener notification all hold the user's id lock, so memory, the log and the listeners
+     * see writes to one user in the same order. Writers of other id stripes still share the
+     * commit.
+     */
+    private boolean compareAndSave(long expectedVersion, User user) {
+        Lock lock = idLocks.get(user.getId());
+        lock.lock();
+        try {
+            User current = userRepository.findById(user.getId()).orElse(null);
+            if (current != null && current.getVersion() != expectedVersion) {
+                return false;
+            }
+            userRepository.save(user);
+            try {
+                commit(writeAheadLog.append(LogRecord.upsert(user)));
+            } catch (RuntimeException e) {
+                undo(user, current);
+                throw e;
+            }
+            notifyListeners(current, user);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void saveAll(Collection<User> users) {
+        List<Lock> locks = idLocks.getAll(users.stream().map(User::getId).toList());
+        locks.forEach(Lock::lock);
+        try {
+            userRepository.saveAll(users);
+            try {
+                commit(writeAheadLog.appendAll(users.stream().map(LogRecord::upsert).toList()));
+            } catch (RuntimeException e) {
+                users.forEach(user -> undo(user, null));
+                throw e;
+            }
+            users.forEach(user -> notifyListeners(null, user));
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Puts back the stored copy a change replaced, after its log write failed. Callers hold
+     * the user's id lock, so no other change to the user slipped in between.
+     */
+    private void undo(User undone, User restored) {
+        if (restored == null) {
+            userRepository.deleteById(undone.getId());
+        } else {
+            userRepository.save(restored);
+        }
+        changeListeners.forEach(listener -> listener.onUndo(undone, restored));
+    }
+
+    private void notifyListeners(User before, User after) {
+        changeListeners.forEach(listener -> listener.onChange(before, after));
+    }
+
+    private static void commit(CompletableFuture<Void> logged) {
+        try {
+            logged.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> T withEmailLock(String email, Supplier<T> action) {
+        Lock lock = emailLocks.get(Emails.normalize(email));
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
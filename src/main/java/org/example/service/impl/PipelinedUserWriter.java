@@ -0,0 +1,285 @@
+package org.example.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.example.exception.EntityNotFoundException;
+import org.example.exception.RegistrationException;
+import org.example.exception.VersionConflictException;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.service.UserChangeListener;
+import org.example.storage.LogRecord;
+import org.example.storage.WriteAheadLog;
+
+/**
+ * Applies every mutation on a single applier thread. Callers queue their mutation and wait
+ * for its future without taking any lock. The applier takes whatever has queued up, applies
+ * it to the repository in arrival order, appends the log records of the whole batch as one
+ * write and waits for it to be committed before telling the change listeners and completing
+ * the futures. If the commit fails, none of the batch is in the log: its changes are undone
+ * in the repository, last to first, the listeners are told of each undo so caches drop what
+ * they read meanwhile, and every mutation in the batch fails.
+ *
+ * <p>Mutations never run concurrently, so email checks and version checks need no locks and
+ * an update never has to be retried. The longer a batch's commit takes, the more mutations
+ * queue up behind it and the more of them share the next one.
+ */
+@Slf4j
+public class PipelinedUserWriter implements UserWriter {
+    private static final int MAX_BATCH_SIZE = 1024;
+    private final Queue<Mutation<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final UserRepository userRepository;
+    private final WriteAheadLog writeAheadLog;
+    private final List<UserChangeListener> changeListeners;
+    private final Thread applier;
+    private volatile boolean closed;
+
+    public PipelinedUserWriter(UserRepository userRepository, WriteAheadLog writeAheadLog,
+                               List<UserChangeListener> changeListeners) {
+        this.userRepository = userRepository;
+        this.writeAheadLog = writeAheadLog;
+        this.changeListeners = changeListeners;
+        this.applier = new Thread(this::applyLoop, "user-writer");
+        this.applier.setDaemon(true);
+        this.applier.start();
+    }
+
+    @Override
+    public User insert(User user) {
+        return submit(mutation -> {
+            if (userRepository.existsByEmail(user.getEmail())) {
+                throw new RegistrationException("Can't register user");
+            }
+            User insertedUser = user.toBuilder()
+                    .id(userRepository.nextId())
+                    .version(FIRST_VERSION)
+                    .build();
+            userRepository.save(insertedUser);
+            mutation.log(null, insertedUser);
+            return insertedUser;
+        });
+    }
+
+    @Override
+    public List<User> insertAll(Collection<User> users) {
+        return submit(mutation -> {
+            List<User> inserted = users.stream()
+                    .filter(user -> !userRepository.existsByEmail(user.getEmail()))
+                    .map(user -> user.toBuilder()
+                            .id(userRepository.nextId())
+                            .version(FIRST_VERSION)
+                            .build())
+                    .toList();
+            userRepository.saveAll(inserted);
+            inserted.forEach(user -> mutation.log(null, user));
+            return inserted;
+        });
+    }
+
+    @Override
+    public User update(int id, Long expectedVersion, String email, UnaryOperator<User> change) {
+        return submit(mutation -> {
+            User existingUser = userRepository.findById(id).orElseThrow(
+                    () -> new EntityNotFoundException("Can't find and update user by id: " + id)
+            );
+            if (expectedVersion != null && existingUser.getVersion() != expectedVersion) {
+                throw new VersionConflictException("User " + id + " is at version "
+                        + existingUser.getVersion() + ", not " + expectedVersion);
+            }
+            User updatedUser = change.apply(existingUser).toBuilder()
+                    .version(existingUser.getVersion() + 1)
+                    .build();
+            userRepository.save(updatedUser);
+            mutation.log(existingUser, updatedUser);
+            return updatedUser;
+        });
+    }
+
+    @Override
+    public User delete(int id) {
+        return submit(mutation -> {
+            User deletedUser = userRepository.deleteById(id).orElseThrow(
+                    () -> new EntityNotFoundException("Can't find and delete user by id: " + id)
+            );
+            mutation.log(deletedUser, null);
+            return deletedUser;
+        });
+    }
+
+    public long batchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Applies the mutations already queued, then stops the applier. Mutations submitted after
+     * that fail with {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(applier);
+        try {
+            applier.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Mutation<?> mutation = queue.poll(); mutation != null; mutation = queue.poll()) {
+            mutation.future.completeExceptionally(closedException());
+        }
+    }
+
+    /**
+     * Queues the mutation and waits for it. A mutation queued while the writer closes is taken
+     * back here unless the applier or {@link #close} has already taken it, in which case they
+     * complete it.
+     */
+    private <T> T submit(Function<Mutation<T>, T> action) {
+        if (closed) {
+            throw closedException();
+        }
+        Mutation<T> mutation = new Mutation<>(action);
+        queue.add(mutation);
+        if (closed && queue.remove(mutation)) {
+            throw closedException();
+        }
+        LockSupport.unpark(applier);
+        try {
+            return mutation.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void applyLoop() {
+        List<Mutation<?>> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            Mutation<?> next = queue.poll();
+            while (next != null) {
+                batch.add(next);
+                next = batch.size() < MAX_BATCH_SIZE ? queue.poll() : null;
+            }
+            if (batch.isEmpty()) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                apply(batch);
+            } catch (RuntimeException e) {
+                log.error("Can't apply a batch of {} user mutations", batch.size(), e);
+                batch.forEach(mutation -> mutation.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<Mutation<?>> batch) {
+        batch.forEach(Mutation::apply);
+        List<LogRecord> records = batch.stream()
+                .flatMap(mutation -> mutation.records.stream())
+                .toList();
+        try {
+            writeAheadLog.appendAll(records).join();
+        } catch (CompletionException e) {
+            log.error("Can't log a batch of {} user mutations, undoing it", batch.size(),
+                    e.getCause());
+            undo(batch);
+            batch.forEach(mutation -> mutation.future.completeExceptionally(e.getCause()));
+            return;
+        }
+        batchCount.incrementAndGet();
+        batch.forEach(Mutation::complete);
+    }
+
+    private void undo(List<Mutation<?>> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            List<Change> changes = batch.get(i).changes;
+            for (int j = changes.size() - 1; j >= 0; j--) {
+                Change change = changes.get(j);
+                if (change.before() == null) {
+                    userRepository.deleteById(change.after().getId());
+                } else {
+                    userRepository.save(change.before());
+                }
+                try {
+                    changeListeners.forEach(listener -> listener.onUndo(change.after(),
+                            change.before()));
+                } catch (RuntimeException e) {
+                    log.error("User change listener failed", e);
+                }
+            }
+        }
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("User writer is closed");
+    }
+
+    /**
+     * Only the applier thread touches a mutation once it is queued; its future hands the
+     * result back to the caller.
+     */
+    private final class Mutation<T> {
+        private final Function<Mutation<T>, T> action;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final List<LogRecord> records = new ArrayList<>();
+        private final List<Change> changes = new ArrayList<>();
+        private T result;
+        private RuntimeException failure;
+
+        private Mutation(Function<Mutation<T>, T> action) {
+            this.action = action;
+        }
+
+        private void log(User before, User after) {
+            records.add(after == null
+                    ? LogRecord.delete(before.getId())
+                    : LogRecord.upsert(after));
+            changes.add(new Change(before, after));
+        }
+
+        private void apply() {
+            try {
+                result = action.apply(this);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        private void complete() {
+            for (Change change : changes) {
+                try {
+                    changeListeners.forEach(listener -> listener.onChange(change.before(),
+                            change.after()));
+                } catch (RuntimeException e) {
+                    log.error("User change listener failed", e);
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private record Change(User before, User after) {
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.service.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.example.dto.UserAggregatesDto;
+import org.example.index.UserStatistics;
+import org.example.index.UserStatistics.BirthDateCounts;
+import org.example.service.UserAggregatesService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads aggregates from {@link UserStatistics}. Age brackets are {@code ageBracketYears}
+ * wide and start at {@code minimum.age}, the youngest age a user can register with; the last
+ * one is open-ended, and users younger than the minimum are counted in a bracket of their own.
+ */
+@Service
+public class UserAggregatesServiceImpl implements UserAggregatesService {
+    private final UserStatistics userStatistics;
+    private final int minimumAge;
+    private final int ageBracketYears;
+    private final int ageBrackets;
+
+    public UserAggregatesServiceImpl(UserStatistics userStatistics,
+            @Value("${minimum.age}") int minimumAge,
+            @Value("${aggregates.age-bracket-years:10}") int ageBracketYears,
+            @Value("${aggregates.age-brackets:6}") int ageBrackets) {
+        this.userStatistics = userStatistics;
+        this.minimumAge = minimumAge;
+        this.ageBracketYears = ageBracketYears;
+        this.ageBrackets = ageBrackets;
+    }
+
+    @Override
+    public UserAggregatesDto getAggregates(LocalDate today) {
+        List<LocalDate> youngerThanDates = new ArrayList<>();
+        for (int i = 0; i < ageBrackets; i++) {
+            youngerThanDates.add(today.minusYears(fromAge(i)).plusDays(1));
+        }
+        BirthDateCounts counts = userStatistics.birthDateCounts(youngerThanDates);
+        int[] youngerThan = counts.usersBornFrom();
+        List<UserAggregatesDto.AgeBracket> brackets = new ArrayList<>();
+        brackets.add(bracket(0, minimumAge - 1, youngerThan[0]));
+        for (int i = 0; i < ageBrackets - 1; i++) {
+            brackets.add(bracket(fromAge(i), fromAge(i + 1) - 1,
+                    youngerThan[i + 1] - youngerThan[i]));
+        }
+        brackets.add(bracket(fromAge(ageBrackets - 1), null,
+                counts.users() - youngerThan[ageBrackets - 1]));
+        return new UserAggregatesDto()
+                .setUsers(counts.users())
+                .setBirthYears(counts.usersByBirthYear().entrySet().stream()
+                        .map(entry -> new UserAggregatesDto.BirthYear()
+                                .setYear(entry.getKey())
+                                .setUsers(entry.getValue()))
+                        .toList())
+                .setAgeBrackets(brackets);
+    }
+
+    private int fromAge(int bracket) {
+        return minimumAge + bracket * ageBracketYears;
+    }
+
+    private static UserAggregatesDto.AgeBracket bracket(int fromAge, Integer toAge, int users) {
+        return new UserAggregatesDto.AgeBracket()
+                .setFromAge(fromAge)
+                .setToAge(toAge)
+                .setUsers(users);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.service.impl;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.example.dto.UserRegistrationRequestDto;
+import org.example.exception.ValidationException;
+import org.example.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserPatcher {
+    private final Map<String, PatchableField<?>> patchableFields;
+    private final Validator validator;
+    private final int minimumAge;
+
+    public UserPatcher(Validator validator, @Value("${minimum.age}") int minimumAge) {
+        this.validator = validator;
+        this.minimumAge = minimumAge;
+        this.patchableFields = Map.of(
+                "email", new PatchableField<>(this::toEmail, User.UserBuilder::email),
+                "firstName", new PatchableField<>(
+                        value -> requiredText("firstName", value), User.UserBuilder::firstName),
+                "lastName", new PatchableField<>(
+                        value -> requiredText("lastName", value), User.UserBuilder::lastName),
+                "birthDate", new PatchableField<>(this::toBirthDate, User.UserBuilder::birthDate),
+                "address", new PatchableField<>(
+                        value -> optionalText("address", value), User.UserBuilder::address),
+                "phoneNumber", new PatchableField<>(
+                        value -> optionalText("phoneNumber", value), User.UserBuilder::phoneNumber)
+        );
+    }
+
+    /**
+     * Returns a copy of the user with the given fields replaced.
+     */
+    public User apply(User user, Map<String, Object> fields) {
+        User.UserBuilder patched = user.toBuilder();
+        fields.forEach((key, value) -> {
+            PatchableField<?> field = patchableFields.get(key);
+            if (field == null) {
+                throw new ValidationException("Unknown field: " + key);
+            }
+            field.apply(patched, value);
+        });
+        return patched.build();
+    }
+
+    /**
+     * Checks the email against the same constraints as registration and PUT.
+     */
+    private String toEmail(Object value) {
+        String email = requiredText("email", value);
+        validator.validateValue(UserRegistrationRequestDto.class, "email", email).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .findFirst()
+                .ifPresent(message -> {
+                    throw new ValidationException("email " + message);
+                });
+        return email;
+    }
+
+    private LocalDate toBirthDate(Object value) {
+        String dateString = requiredText("birthDate", value);
+        LocalDate birthDate;
+        try {
+            birthDate = LocalDate.parse(dateString);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("Invalid birth date. Check again");
+        }
+        LocalDate now = LocalDate.now();
+        if (!birthDate.isBefore(now) || Period.between(birthDate, now).getYears() < minimumAge) {
+            throw new ValidationException("Invalid birth date. Check again");
+        }
+        return birthDate;
+    }
+
+    private static String requiredText(String key, Object value) {
+        String text = optionalText(key, value);
+        if (text == null || text.isBlank()) {
+            throw new ValidationException(key + " must not be empty!");
+        }
+        return text;
+    }
+
+    private static String optionalText(String key, Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        throw new ValidationException(key + " must be a string");
+    }
+
+    private record PatchableField<T>(Function<Object, T> coercer,
+                                     BiConsumer<User.UserBuilder, T> setter) {
+        void apply(User.UserBuilder user, Object value) {
+            setter.accept(user, coercer.apply(value));
+        }
+    }
+}
@@ -1,123 +1,279 @@
 package org.example.service.impl;
 
-import java.lang.reflect.Field;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import java.time.LocalDate;
-import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import org.example.cache.SearchResultCache;
+import org.example.dto.BatchRegistrationResultDto;
+import org.example.dto.BatchRegistrationResultDto.Status;
+import org.example.dto.QueryPlanDto;
+import org.example.dto.UserPageResponseDto;
+import org.example.dto.UserQueryRequestDto;
+import org.example.dto.UserQueryResponseDto;
 import org.example.dto.UserRegistrationRequestDto;
 import org.example.dto.UserResponseDto;
 import org.example.exception.EntityNotFoundException;
 import org.example.exception.RegistrationException;
 import org.example.exception.ValidationException;
+import org.example.index.NamePrefixIndex;
 import org.example.mapper.UserMapper;
+import org.example.model.BirthDateCursor;
 import org.example.model.User;
+import org.example.query.QueryPlan;
+import org.example.query.QueryPlanner;
+import org.example.query.QueryResult;
+import org.example.query.UserQuery;
+import org.example.repository.UserRepository;
 import org.example.service.UserService;
-import org.example.storage.Storage;
-import org.springframework.beans.factory.annotation.Value;
+import org.example.util.Emails;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ReflectionUtils;
 
 @RequiredArgsConstructor
 @Service
+@Timed(value = "user.service", histogram = true)
 public class UserServiceImpl implements UserService {
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final Comparator<UserResponseDto> BIRTH_DATE_ORDER = Comparator
+            .comparing(UserResponseDto::getBirthDate)
+            .thenComparingInt(UserResponseDto::getId);
     private final UserMapper userMapper;
-    @Value("${minimum.age}")
-    private int minimumAge;
-    private int userCounter;
+    private final UserRepository userRepository;
+    private final Validator validator;
+    private final UserPatcher userPatcher;
+    private final UserWriter userWriter;
+    private final SearchResultCache searchResultCache;
+    private final NamePrefixIndex namePrefixIndex;
+    private final QueryPlanner queryPlanner;
 
     @Override
     public UserResponseDto register(UserRegistrationRequestDto requestDto) {
-        if (findByEmail(requestDto.getEmail()).isPresent()) {
-            throw new RegistrationException("Can't register user");
-        }
-        User user = userMapper.toModel(requestDto);
-        user.setId(++userCounter);
-        Storage.userStorage.add(user);
-        return userMapper.toDto(user);
+        return userMapper.toDto(userWriter.insert(userMapper.toModel(requestDto)));
     }
 
     @Override
-    public void deleteUser(int id) {
-        User existingUser = findById(id).orElseThrow(
-                () -> new EntityNotFoundException("Can't find and delete user by id: " + id)
-        );
-        Storage.userStorage.remove(existingUser);
+    public UserResponseDto getUser(int id) {
+        return userMapper.toDto(userRepository.findById(id).orElseThrow(
+                () -> new EntityNotFoundException("Can't find user by id: " + id)
+        ));
     }
 
     @Override
-    public UserResponseDto updateUserInfo(int id, UserRegistrationRequestDto requestDto) {
-        User existingUser = findById(id).orElseThrow(
-                () -> new EntityNotFoundException("Can't find and update user by id: " + id)
-        );
-        if (!existingUser.getEmail().equals(requestDto.getEmail())) {
-            if (findByEmail(requestDto.getEmail()).isPresent()) {
-                throw new RegistrationException("The email address exists");
+    public List<BatchRegistrationResultDto> registerAll(
+            List<UserRegistrationRequestDto> requestDtos) {
+        if (requestDtos.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Batch can't contain more than "
+                    + MAX_BATCH_SIZE + " users");
+        }
+        List<BatchRegistrationResultDto> results = new ArrayList<>(requestDtos.size());
+        Map<Integer, User> candidates = new LinkedHashMap<>();
+        Set<String> batchEmails = new HashSet<>();
+        for (int i = 0; i < requestDtos.size(); i++) {
+            UserRegistrationRequestDto requestDto = requestDtos.get(i);
+            BatchRegistrationResultDto result = new BatchRegistrationResultDto().setIndex(i);
+            results.add(result);
+            List<String> errors = validate(requestDto);
+            if (!errors.isEmpty()) {
+                reject(result, errors);
+            } else if (!batchEmails.add(Emails.normalize(requestDto.getEmail()))) {
+                reject(result, List.of("email is duplicated in the batch"));
+            } else {
+                candidates.put(i, userMapper.toModel(requestDto));
             }
-            existingUser.setEmail(requestDto.getEmail());
         }
-        existingUser.setFirstName(requestDto.getFirstName());
-        existingUser.setLastName(requestDto.getLastName());
-        existingUser.setBirthDate(requestDto.getBirthDate());
-        existingUser.setAddress(requestDto.getAddress());
-        existingUser.setPhoneNumber(requestDto.getPhoneNumber());
-        return userMapper.toDto(existingUser);
-    }
 
-    @Override
-    public UserResponseDto updateUserInfoPartially(int id, Map<String, Object> fields) {
-        User existingUser = findById(id).orElseThrow(
-                () -> new EntityNotFoundException("Can't find and update user by id: " + id)
-        );
-
-        fields.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(User.class, key);
-            if (field != null) {
-                if (!"address".equals(key) && !"phoneNumber".equals(key)
-                        && (value == null || value.toString().trim().isEmpty())) {
-                    throw new ValidationException(key + " must not be empty!");
-                }
-                field.setAccessible(true);
-                if ("birthDate".equals(key)) {
-                    String dateString = (String) value;
-                    LocalDate birthDate = LocalDate.parse(dateString);
-                    if (birthDate.isBefore(LocalDate.now())
-                            && Period.between(birthDate, LocalDate.now()).getYears()
-                            >= minimumAge) {
-                        value = birthDate;
-                    } else {
-                        throw new ValidationException("Invalid birth date. Check again");
-                    }
-                }
-
-                ReflectionUtils.setField(field, existingUser, value);
+        Map<String, User> inserted = userWriter.insertAll(candidates.values()).stream()
+                .collect(Collectors.toMap(user -> Emails.normalize(user.getEmail()),
+                        Function.identity()));
+        candidates.forEach((index, candidate) -> {
+            User user = inserted.get(Emails.normalize(candidate.getEmail()));
+            if (user != null) {
+                results.get(index)
+                        .setStatus(Status.CREATED)
+                        .setUser(userMapper.toDto(user));
+            } else {
+                reject(results.get(index), List.of("The email address exists"));
             }
         });
+        return results;
+    }
 
-        return userMapper.toDto(existingUser);
+    @Override
+    public void deleteUser(int id) {
+        userWriter.delete(id);
+    }
+
+    @Override
+    public UserResponseDto updateUserInfo(int id, UserRegistrationRequestDto requestDto,
+                                          Long expectedVersion) {
+        User updatedUser = userWriter.update(id, expectedVersion, requestDto.getEmail(),
+                existingUser -> {
+                    checkEmailIsFree(existingUser, requestDto.getEmail());
+                    return existingUser.toBuilder()
+                            .email(requestDto.getEmail())
+                            .firstName(requestDto.getFirstName())
+                            .lastName(requestDto.getLastName())
+                            .birthDate(requestDto.getBirthDate())
+                            .address(requestDto.getAddress())
+                            .phoneNumber(requestDto.getPhoneNumber())
+                            .build();
+                });
+        return userMapper.toDto(updatedUser);
+    }
+
+    @Override
+    public UserResponseDto updateUserInfoPartially(int id, Map<String, Object> fields,
+                                                   Long expectedVersion) {
+        Object email = fields.get("email");
+        User updatedUser = userWriter.update(id, expectedVersion,
+                email == null ? null : email.toString(), existingUser -> {
+                    User patchedUser = userPatcher.apply(existingUser, fields);
+                    checkEmailIsFree(existingUser, patchedUser.getEmail());
+                    return patchedUser;
+                });
+        return userMapper.toDto(updatedUser);
     }
 
     @Override
     public List<UserResponseDto> searchByBirthDateRange(LocalDate fromDate, LocalDate toDate) {
-        return Storage.userStorage.stream()
-                .filter(user -> (user.getBirthDate().isAfter(fromDate)
-                       && user.getBirthDate().isBefore(toDate)))
+        return searchResultCache.get(fromDate, toDate, () -> loadRange(fromDate, toDate))
+                .orElseGet(() -> userRepository.findAllByBirthDateBetween(fromDate, toDate)
+                        .map(userMapper::toDto)
+                        .collect(Collectors.toList()));
+    }
+
+    @Override
+    public UserPageResponseDto searchByBirthDateRange(LocalDate fromDate, LocalDate toDate,
+                                                      String pageToken, int pageSize) {
+        BirthDateCursor after = pageToken == null ? null : BirthDateCursor.decode(pageToken);
+        Optional<List<UserResponseDto>> cached = searchResultCache.get(fromDate, toDate,
+                () -> loadRange(fromDate, toDate));
+        if (cached.isPresent()) {
+            return page(cached.get(), after, pageSize);
+        }
+        List<User> users = userRepository.findAllByBirthDateBetween(fromDate, toDate,
+                after, pageSize + 1);
+        UserPageResponseDto page = new UserPageResponseDto();
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            page.setNextPageToken(BirthDateCursor.of(users.get(pageSize - 1)).encode());
+        }
+        return page.setUsers(users.stream()
+                .map(userMapper::toDto)
+                .toList());
+    }
+
+    @Override
+    public Stream<UserResponseDto> streamByBirthDateRange(LocalDate fromDate, LocalDate toDate) {
+        return userRepository.findAllByBirthDateBetween(fromDate, toDate)
+                .map(userMapper::toDto);
+    }
+
+    @Override
+    public List<UserResponseDto> searchByNamePrefix(String prefix, int limit) {
+        return namePrefixIndex.search(prefix, limit).stream()
+                .map(userRepository::findById)
+                .flatMap(Optional::stream)
+                .map(userMapper::toDto)
+                .toList();
+    }
+
+    @Override
+    public UserQueryResponseDto query(UserQueryRequestDto requestDto) {
+        UserQuery query = new UserQuery(requestDto.getFromDate(), requestDto.getToDate(),
+                requestDto.getFirstNamePrefix(), requestDto.getLastNamePrefix(),
+                requestDto.getHasPhoneNumber());
+        QueryPlan plan = queryPlanner.plan(query);
+        QueryResult result = queryPlanner.execute(plan, requestDto.getLimit());
+        return new UserQueryResponseDto()
+                .setUsers(result.users().stream().map(userMapper::toDto).toList())
+                .setPlan(requestDto.isExplain() ? toDto(plan, result.rowsExamined()) : null);
+    }
+
+    private List<UserResponseDto> loadRange(LocalDate fromDate, LocalDate toDate) {
+        return userRepository.findAllByBirthDateBetween(fromDate, toDate, null,
+                        searchResultCache.maxUsers() + 1).stream()
                 .map(userMapper::toDto)
-                .collect(Collectors.toList());
+                .toList();
     }
 
-    private Optional<User> findByEmail(String email) {
-        return Storage.userStorage.stream()
-                .filter(user -> user.getEmail().equals(email))
-                .findFirst();
+    private static UserPageResponseDto page(List<UserResponseDto> users, BirthDateCursor after,
+                                            int pageSize) {
+        int from = 0;
+        if (after != null) {
+            UserResponseDto key = new UserResponseDto()
+                    .setBirthDate(after.birthDate())
+                    .setId(after.id());
+            int found = Collections.binarySearch(users, key, BIRTH_DATE_ORDER);
+            from = found >= 0 ? found + 1 : -found - 1;
+        }
+        int to = Math.min(users.size(), from + pageSize);
+        UserPageResponseDto page = new UserPageResponseDto().setUsers(users.subList(from, to));
+        if (to < users.size()) {
+            UserResponseDto last = users.get(to - 1);
+            page.setNextPageToken(new BirthDateCursor(last.getBirthDate(), last.getId())
+                    .encode());
+        }
+        return page;
+    }
+
+    private static QueryPlanDto toDto(QueryPlan plan, long rowsExamined) {
+        UserQuery query = plan.query();
+        return new QueryPlanDto()
+                .setAccessPath(plan.accessPath().name())
+                .setDrivingFilter(plan.drivingCondition() == null
+                        ? null
+                        : query.describe(plan.drivingCondition()))
+                .setEstimatedRows(plan.estimatedRows())
+                .setRowsExamined(rowsExamined)
+                .setResidualFilters(plan.residualConditions().stream()
+                        .map(query::describe)
+                        .toList())
+                .setEstimates(plan.estimates().stream()
+                        .map(estimate -> new QueryPlanDto.Estimate()
+                                .setFilter(estimate.condition() == null
+                                        ? null
+                                        : query.describe(estimate.condition()))
+                                .setAccessPath(estimate.accessPath() == null
+                                        ? null
+                                        : estimate.accessPath().name())
+                                .setEstimatedRows(estimate.rows()))
+                        .toList());
+    }
+
+    private void checkEmailIsFree(User existingUser, String email) {
+        if (!Emails.normalize(existingUser.getEmail()).equals(Emails.normalize(email))
+                && userRepository.existsByEmail(email)) {
+            throw new RegistrationException("The email address exists");
+        }
+    }
+
+    private List<String> validate(UserRegistrationRequestDto requestDto) {
+        if (requestDto == null) {
+            return List.of("user must not be null");
+        }
+        Set<ConstraintViolation<UserRegistrationRequestDto>> violations =
+                validator.validate(requestDto);
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .toList();
     }
 
-    private Optional<User> findById(int id) {
-        return Storage.userStorage.stream()
-                .filter(user -> user.getId() == id)
-                .findFirst();
+    private void reject(BatchRegistrationResultDto result, List<String> errors) {
+        result.setStatus(Status.REJECTED).setErrors(errors);
     }
 }
@@ -0,0 +1,49 @@
+package org.example.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import org.example.model.User;
+
+/**
+ * Applies user mutations for {@link UserServiceImpl}: saves them to the repository and the
+ * write-ahead log, waits until they are durable and reports them to the change listeners.
+ * Implementations decide how concurrent mutations are kept from interfering.
+ */
+public interface UserWriter extends AutoCloseable {
+    long FIRST_VERSION = 1;
+
+    /**
+     * Registers a copy of the user under the next id.
+     *
+     * @return the registered copy
+     * @throws org.example.exception.RegistrationException when its email is taken
+     */
+    User insert(User user);
+
+    /**
+     * Registers a copy of every user whose email isn't taken, each under the next id. Emails
+     * must be distinct within the batch.
+     *
+     * @return the registered copies, in the order of {@code users}
+     */
+    List<User> insertAll(Collection<User> users);
+
+    /**
+     * Saves {@code change} applied to the stored user as its next version. The change runs
+     * while no other mutation can take {@code email} (when it isn't null), so it can check
+     * that the email is free. When {@code expectedVersion} is not null the update only applies
+     * to that version of the user and fails with
+     * {@link org.example.exception.VersionConflictException} otherwise.
+     */
+    User update(int id, Long expectedVersion, String email, UnaryOperator<User> change);
+
+    /**
+     * @return the deleted user
+     */
+    User delete(int id);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.example.repository.UserRepository;
+
+/**
+ * Periodically rolls the write-ahead log and writes a snapshot of the store in the background.
+ * The snapshot iterates the live repository without blocking writers; anything it misses or
+ * catches half-way is in the new log segment, which is replayed on top of it.
+ */
+@Slf4j
+public class Checkpointer implements Closeable {
+    private final UserRepository userRepository;
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotStore snapshotStore;
+    private final ScheduledExecutorService scheduler;
+
+    public Checkpointer(UserRepository userRepository, WriteAheadLog writeAheadLog,
+                        SnapshotStore snapshotStore) {
+        this.userRepository = userRepository;
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(this::checkpointQuietly, interval.toMillis(),
+                interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkpoint() throws IOException {
+        long firstSegment = writeAheadLog.roll();
+        snapshotStore.write(firstSegment, userRepository.lastId(), userRepository.findAll());
+        writeAheadLog.deleteSegmentsBefore(firstSegment);
+        log.info("Wrote snapshot of {} users, log replay starts at segment {}",
+                userRepository.count(), firstSegment);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            log.error("Checkpoint failed, the write-ahead log keeps growing until the next one", e);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.User;
+
+/**
+ * Append-only log of user mutations, split into numbered segment files. Callers serialize
+ * their own records and queue them; a single flusher thread writes whatever has queued up
+ * with one gathering write and one {@code force}, so concurrent writers share an fsync
+ * instead of paying for one each.
+ *
+ * <p>Each record is framed as {@code [length][crc32c][type][payload]}. A torn or corrupt
+ * tail left by a crash is cut off during {@link #replay}. A batch whose write fails is cut off
+ * right away, so later batches never land behind torn bytes; if even that fails, the log
+ * rejects every later append.
+ */
+@Slf4j
+public class FileWriteAheadLog implements WriteAheadLog {
+    private static final String SEGMENT_PREFIX = "users-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final long IDLE_POLL_MILLIS = 100;
+    private final Path directory;
+    private final long commitDelayNanos;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong syncCount = new AtomicLong();
+    private final Thread flusher;
+    private volatile long segment;
+    private FileChannel channel;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public FileWriteAheadLog(Path directory, Duration commitDelay) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.commitDelayNanos = commitDelay.toNanos();
+        List<Long> segments = segments();
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        this.channel = openSegment(segment);
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    @Override
+    public void replay(long fromSegment, Consumer<LogRecord> consumer) throws IOException {
+        for (long replayed : segments()) {
+            if (replayed < fromSegment) {
+                continue;
+            }
+            if (replayed == segment) {
+                channel.position(replaySegment(channel, replayed, consumer, true));
+            } else {
+                try (FileChannel segmentChannel = FileChannel.open(segmentPath(replayed),
+                        StandardOpenOption.READ)) {
+                    replaySegment(segmentChannel, replayed, consumer, false);
+                }
+            }
+        }
+    }
+
+    public void start() {
+        flusher.start();
+    }
+
+    @Override
+    public CompletableFuture<Void> append(LogRecord record) {
+        return enqueue(new PendingWrite(encode(record), new CompletableFuture<>()));
+    }
+
+    /**
+     * Frames the records back to back into a single write, so a failed batch cuts them all off
+     * together.
+     */
+    @Override
+    public CompletableFuture<Void> appendAll(List<LogRecord> records) {
+        if (records.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<byte[]> frames = records.stream().map(FileWriteAheadLog::encode).toList();
+        ByteBuffer frame = ByteBuffer.allocate(frames.stream().mapToInt(each -> each.length).sum());
+        frames.forEach(frame::put);
+        return enqueue(new PendingWrite(frame.array(), new CompletableFuture<>()));
+    }
+
+    @Override
+    public long roll() {
+        enqueue(new PendingWrite(null, new CompletableFuture<>())).join();
+        return segment;
+    }
+
+    @Override
+    public void deleteSegmentsBefore(long firstKeptSegment) throws IOException {
+        for (long existing : segments()) {
+            if (existing < firstKeptSegment) {
+                Files.deleteIfExists(segmentPath(existing));
+            }
+        }
+    }
+
+    public long syncCount() {
+        return syncCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingWrite> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        leftover.forEach(pending -> pending.future().completeExceptionally(closedException()));
+        channel.close();
+    }
+
+    /**
+     * Queues the write, unless the log is closed or failed. A write queued while the log closes
+     * is taken back here unless the flusher or {@link #close} has already taken it, in which
+     * case they complete it.
+     */
+    private CompletableFuture<Void> enqueue(PendingWrite pending) {
+        if (failure != null) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(failure));
+        }
+        if (closed) {
+            return CompletableFuture.failedFuture(closedException());
+        }
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            pending.future().completeExceptionally(closedException());
+        }
+        return pending.future();
+    }
+
+    private long replaySegment(FileChannel segmentChannel, long replayed,
+                               Consumer<LogRecord> consumer, boolean active) throws IOException {
+        long size = segmentChannel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(segmentChannel, header, position);
+            int length = header.getInt(0);
+            int checksum = header.getInt(Integer.BYTES);
+            if (length <= 0 || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(segmentChannel, body, position + HEADER_SIZE);
+            if (checksum(body.array()) != checksum) {
+                break;
+            }
+            consumer.accept(decode(body.flip()));
+            position += HEADER_SIZE + length;
+        }
+        if (position < size) {
+            log.warn("Ignoring {} bytes of incomplete records at the end of segment {}",
+                    size - position, replayed);
+            if (active) {
+                segmentChannel.truncate(position);
+            }
+        }
+        return position;
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingWrite> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + commitDelayNanos;
+        while (batch.size() < MAX_BATCH_SIZE) {
+            queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || batch.size() >= MAX_BATCH_SIZE) {
+                return;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        int start = 0;
+        for (int i = 0; i <= batch.size(); i++) {
+            if (i == batch.size() || batch.get(i).isRoll()) {
+                if (i > start) {
+                    writeRecords(batch.subList(start, i));
+                }
+                if (i < batch.size()) {
+                    rollSegment(batch.get(i));
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+    private void writeRecords(List<PendingWrite> records) {
+        if (failure != null) {
+            fail(records, failure);
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(records.get(i).frame());
+        }
+        long start = -1;
+        try {
+            start = channel.position();
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(false);
+            syncCount.incrementAndGet();
+            records.forEach(pending -> pending.future().complete(null));
+        } catch (IOException e) {
+            log.error("Can't write {} records to segment {}", records.size(), segment, e);
+            fail(records, e);
+            cutOff(start, e);
+        }
+    }
+
+    /**
+     * Drops whatever part of a failed batch reached the segment, so that the next batch is
+     * written where the last acknowledged one ended.
+     */
+    private void cutOff(long start, IOException cause) {
+        IOException cutOffFailure = cause;
+        if (start >= 0) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+                return;
+            } catch (IOException e) {
+                cutOffFailure = e;
+            }
+        }
+        log.error("Can't cut off a failed batch in segment {}; rejecting further appends",
+                segment, cutOffFailure);
+        failure = cutOffFailure;
+    }
+
+    private void rollSegment(PendingWrite roll) {
+        try {
+            FileChannel next = openSegment(segment + 1);
+            channel.close();
+            channel = next;
+            segment++;
+            roll.future().complete(null);
+        } catch (IOException e) {
+            log.error("Can't roll write-ahead log past segment {}", segment, e);
+            fail(List.of(roll), e);
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel opened = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        opened.position(opened.size());
+        return opened;
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX)
+                            && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number,
+                SEGMENT_SUFFIX));
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("Write-ahead log is closed");
+    }
+
+    private static void fail(List<PendingWrite> writes, IOException e) {
+        UncheckedIOException failure = new UncheckedIOException(e);
+        writes.forEach(pending -> pending.future().completeExceptionally(failure));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of write-ahead log segment");
+            }
+        }
+    }
+
+    private static byte[] encode(LogRecord record) {
+        byte[] payload = record.type() == LogRecord.Type.UPSERT
+                ? UserCodec.encode(record.user())
+                : ByteBuffer.allocate(Integer.BYTES).putInt(record.id()).array();
+        ByteBuffer body = ByteBuffer.allocate(1 + payload.length)
+                .put((byte) record.type().ordinal())
+                .put(payload);
+        return ByteBuffer.allocate(HEADER_SIZE + body.capacity())
+                .putInt(body.capacity())
+                .putInt(checksum(body.array()))
+                .put(body.array())
+                .array();
+    }
+
+    private static LogRecord decode(ByteBuffer body) {
+        LogRecord.Type type = LogRecord.Type.values()[body.get()];
+        if (type == LogRecord.Type.DELETE) {
+            return LogRecord.delete(body.getInt());
+        }
+        User user = UserCodec.decode(body);
+        return LogRecord.upsert(user);
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * One or more framed records written together, or a roll when {@code frame} is null.
+     */
+    private record PendingWrite(byte[] frame, CompletableFuture<Void> future) {
+        boolean isRoll() {
+            return frame == null;
+        }
+    }
+}
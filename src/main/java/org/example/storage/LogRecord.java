@@ -0,0 +1,18 @@
+package org.example.storage;
+
+import org.example.model.User;
+
+public record LogRecord(Type type, int id, User user) {
+    public static LogRecord upsert(User user) {
+        return new LogRecord(Type.UPSERT, user.getId(), user);
+    }
+
+    public static LogRecord delete(int id) {
+        return new LogRecord(Type.DELETE, id, null);
+    }
+
+    public enum Type {
+        UPSERT,
+        DELETE
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.storage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public class NoOpWriteAheadLog implements WriteAheadLog {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    @Override
+    public CompletableFuture<Void> append(LogRecord record) {
+        return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Void> appendAll(List<LogRecord> records) {
+        return DONE;
+    }
+
+    @Override
+    public void replay(long fromSegment, Consumer<LogRecord> consumer) {
+    }
+
+    @Override
+    public long roll() {
+        return 0;
+    }
+
+    @Override
+    public void deleteSegmentsBefore(long firstKeptSegment) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.example.model.User;
+
+/**
+ * Versioned binary snapshots of the user store. A snapshot file is
+ * {@code [magic][version][first log segment][last id]}, then {@code [length][user]} records
+ * encoded by {@link UserCodec}, then {@code [-1][count][crc32c]}. Snapshots are written to a
+ * temporary file and moved into place, and read back through memory-mapped windows.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x55534e50;
+    private static final int FORMAT_VERSION = 2;
+    private static final int FORMAT_VERSION_WITHOUT_LAST_ID = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+    private static final int TRAILER_SIZE = 3 * Integer.BYTES;
+    private static final int END_OF_RECORDS = -1;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long MAX_MAPPED_WINDOW = 1L << 30;
+    private static final String SNAPSHOT_PREFIX = "users-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private final Path directory;
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Writes the users as a snapshot that is completed by replaying the log from
+     * {@code firstSegment}, then removes older snapshots. {@code lastId} is the highest id
+     * handed out so far, kept so that ids of deleted users are not handed out again.
+     */
+    public void write(long firstSegment, int lastId, Iterable<User> users) throws IOException {
+        Files.createDirectories(directory);
+        Path target = snapshotPath(firstSegment);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(firstSegment).putInt(lastId);
+            CRC32C crc = new CRC32C();
+            int count = 0;
+            for (User user : users) {
+                byte[] record = UserCodec.encode(user);
+                if (buffer.remaining() < Integer.BYTES + record.length) {
+                    drain(channel, buffer);
+                }
+                if (buffer.remaining() < Integer.BYTES + record.length) {
+                    drain(channel, ByteBuffer.allocate(Integer.BYTES + record.length)
+                            .putInt(record.length)
+                            .put(record));
+                } else {
+                    buffer.putInt(record.length).put(record);
+                }
+                crc.update(record);
+                count++;
+            }
+            if (buffer.remaining() < TRAILER_SIZE) {
+                drain(channel, buffer);
+            }
+            buffer.putInt(END_OF_RECORDS).putInt(count).putInt((int) crc.getValue());
+            drain(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        for (long existing : snapshots()) {
+            if (existing < firstSegment) {
+                Files.deleteIfExists(snapshotPath(existing));
+            }
+        }
+    }
+
+    /**
+     * Feeds every user of the latest snapshot to the consumer and returns its header, or
+     * nothing when there is no snapshot yet.
+     */
+    public Optional<Header> load(Consumer<User> consumer) throws IOException {
+        List<Long> snapshots = snapshots();
+        if (snapshots.isEmpty()) {
+            return Optional.empty();
+        }
+        Path path = snapshotPath(snapshots.get(snapshots.size() - 1));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedWindow window = new MappedWindow(channel);
+            ByteBuffer header = window.at(0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a user snapshot: " + path);
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION && version != FORMAT_VERSION_WITHOUT_LAST_ID) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            long firstSegment = header.getLong();
+            // older snapshots only have the ids of their own users to go by
+            boolean hasLastId = version == FORMAT_VERSION;
+            int lastId = hasLastId ? header.getInt() : 0;
+            CRC32C crc = new CRC32C();
+            int count = 0;
+            long position = hasLastId ? HEADER_SIZE : HEADER_SIZE - Integer.BYTES;
+            int length = window.at(position, Integer.BYTES).getInt();
+            while (length != END_OF_RECORDS) {
+                ByteBuffer record = window.at(position + Integer.BYTES, length);
+                crc.update(record.duplicate());
+                consumer.accept(UserCodec.decode(record));
+                count++;
+                position += Integer.BYTES + length;
+                length = window.at(position, Integer.BYTES).getInt();
+            }
+            ByteBuffer trailer = window.at(position + Integer.BYTES, TRAILER_SIZE - Integer.BYTES);
+            if (trailer.getInt() != count || trailer.getInt() != (int) crc.getValue()) {
+                throw new IOException("Corrupt user snapshot: " + path);
+            }
+            return Optional.of(new Header(firstSegment, lastId));
+        }
+    }
+
+    private List<Long> snapshots() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX)
+                            && name.endsWith(SNAPSHOT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(),
+                            name.length() - SNAPSHOT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path snapshotPath(long firstSegment) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, firstSegment,
+                SNAPSHOT_SUFFIX));
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * {@code firstSegment} is the first log segment to replay on top of the snapshot.
+     */
+    public record Header(long firstSegment, int lastId) {
+    }
+
+    /**
+     * Maps the file in windows of up to 1 GiB, so snapshots larger than a single
+     * {@link MappedByteBuffer} can address are still read without copying.
+     */
+    private static final class MappedWindow {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer buffer;
+        private long start;
+
+        private MappedWindow(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        private ByteBuffer at(long position, int length) throws IOException {
+            if (length < 0 || position + length > size) {
+                throw new IOException("Truncated user snapshot");
+            }
+            if (buffer == null || position < start || position + length > start + buffer.limit()) {
+                start = position;
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(Math.max(MAX_MAPPED_WINDOW, length), size - start));
+            }
+            return buffer.slice((int) (position - start), length);
+        }
+    }
+}
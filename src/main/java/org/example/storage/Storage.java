@@ -1,9 +0,0 @@
-package org.example.storage;
-
-import java.util.ArrayList;
-import java.util.List;
-import org.example.model.User;
-
-public class Storage {
-    public static final List<User> userStorage = new ArrayList<>();
-}
@@ -0,0 +1,77 @@
+package org.example.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import org.example.model.User;
+
+public final class UserCodec {
+    private static final int NULL_LENGTH = -1;
+
+    private UserCodec() {
+    }
+
+    public static byte[] encode(User user) {
+        byte[][] strings = {
+                bytes(user.getEmail()),
+                bytes(user.getFirstName()),
+                bytes(user.getLastName()),
+                bytes(user.getAddress()),
+                bytes(user.getPhoneNumber())
+        };
+        int size = 2 * Integer.BYTES + Long.BYTES;
+        for (byte[] string : strings) {
+            size += Integer.BYTES + (string == null ? 0 : string.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size)
+                .putInt(user.getId())
+                .putInt((int) user.getBirthDate().toEpochDay());
+        for (byte[] string : strings) {
+            if (string == null) {
+                buffer.putInt(NULL_LENGTH);
+            } else {
+                buffer.putInt(string.length).put(string);
+            }
+        }
+        return buffer.putLong(user.getVersion()).array();
+    }
+
+    /**
+     * Decodes one user from the rest of the buffer. Records written before users were
+     * versioned end after the phone number and decode with version 0.
+     */
+    public static User decode(ByteBuffer buffer) {
+        User.UserBuilder user = User.builder()
+                .id(buffer.getInt())
+                .birthDate(LocalDate.ofEpochDay(buffer.getInt()))
+                .email(string(buffer))
+                .firstName(string(buffer))
+                .lastName(string(buffer))
+                .address(string(buffer))
+                .phoneNumber(string(buffer));
+        if (buffer.remaining() >= Long.BYTES) {
+            user.version(buffer.getLong());
+        }
+        return user.build();
+    }
+
+    private static byte[] bytes(String string) {
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (!buffer.hasArray()) {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+public interface WriteAheadLog extends Closeable {
+    /**
+     * Queues the record and returns a future that completes once it has been forced to disk.
+     */
+    CompletableFuture<Void> append(LogRecord record);
+
+    /**
+     * Queues the records as one write: the returned future completes once all of them have
+     * been forced to disk, and if the write fails none of them is kept.
+     */
+    CompletableFuture<Void> appendAll(List<LogRecord> records);
+
+    void replay(long fromSegment, Consumer<LogRecord> consumer) throws IOException;
+
+    /**
+     * Starts a new segment and returns its number. Every record queued before the call is
+     * in an earlier segment.
+     */
+    long roll();
+
+    void deleteSegmentsBefore(long firstKeptSegment) throws IOException;
+}
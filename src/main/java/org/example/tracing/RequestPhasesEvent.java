@@ -0,0 +1,54 @@
+package org.example.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("org.example.RequestPhases")
+@Label("User API Request")
+@Category("User API")
+@Description("Time a request spent in validation, the service, mapping and serialization")
+@StackTrace(false)
+class RequestPhasesEvent extends Event {
+    @Label("Endpoint")
+    private String endpoint;
+
+    @Label("User Id")
+    @Description("Id of the user the request named or returned, 0 when there is none")
+    private int userId;
+
+    @Label("Status")
+    private int status;
+
+    @Label("Validation")
+    @Timespan
+    private long validation;
+
+    @Label("Service")
+    @Description("Service and storage time, without the mapping done inside the service")
+    @Timespan
+    private long service;
+
+    @Label("Mapping")
+    @Timespan
+    private long mapping;
+
+    @Label("Serialization")
+    @Description("Writing the response body, including the network unless it is buffered")
+    @Timespan
+    private long serialization;
+
+    void record(String endpoint, int userId, int status, RequestTrace trace) {
+        this.endpoint = endpoint;
+        this.userId = userId;
+        this.status = status;
+        this.validation = trace.nanos(RequestTrace.Phase.VALIDATION);
+        this.service = trace.nanos(RequestTrace.Phase.SERVICE);
+        this.mapping = trace.nanos(RequestTrace.Phase.MAPPING);
+        this.serialization = trace.nanos(RequestTrace.Phase.SERIALIZATION);
+    }
+}
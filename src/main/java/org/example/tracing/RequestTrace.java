@@ -0,0 +1,105 @@
+package org.example.tracing;
+
+import java.util.Locale;
+
+/**
+ * Time one request spends in each {@link Phase}, kept on the request's thread. Phases nest:
+ * entering mapping from inside the service pauses the service phase, so every nanosecond is
+ * charged to exactly one phase.
+ *
+ * <p>The static methods do nothing when no trace was started on the current thread, which is
+ * the case unless Flight Recorder or the {@code Server-Timing} header asks for it.
+ */
+public final class RequestTrace {
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private final long[] nanos = new long[Phase.values().length];
+    private Phase phase;
+    private long phaseStart;
+    private int userId;
+
+    private RequestTrace() {
+    }
+
+    public static RequestTrace start() {
+        RequestTrace trace = new RequestTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Switches the current thread's trace to {@code next} and returns the phase to restore
+     * with {@link #exit} once it is over.
+     */
+    public static Phase enter(Phase next) {
+        RequestTrace trace = CURRENT.get();
+        return trace == null ? null : trace.switchTo(next);
+    }
+
+    public static void exit(Phase previous) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.switchTo(previous);
+        }
+    }
+
+    public static void recordUserId(int userId) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.userId = userId;
+        }
+    }
+
+    /**
+     * Closes the open phase and detaches the trace from the current thread.
+     */
+    public void finish() {
+        switchTo(null);
+        CURRENT.remove();
+    }
+
+    public long nanos(Phase of) {
+        return nanos[of.ordinal()];
+    }
+
+    public int userId() {
+        return userId;
+    }
+
+    /**
+     * The phases as a {@code Server-Timing} header value, durations in milliseconds.
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Phase each : Phase.values()) {
+            if (!header.isEmpty()) {
+                header.append(", ");
+            }
+            header.append(each.metricName())
+                    .append(";dur=")
+                    .append(String.format(Locale.ROOT, "%.3f", nanos(each) / 1_000_000.0));
+        }
+        return header.toString();
+    }
+
+    private Phase switchTo(Phase next) {
+        long now = System.nanoTime();
+        if (phase != null) {
+            nanos[phase.ordinal()] += now - phaseStart;
+        }
+        Phase previous = phase;
+        phase = next;
+        phaseStart = now;
+        return previous;
+    }
+
+    public enum Phase {
+        VALIDATION,
+        SERVICE,
+        MAPPING,
+        SERIALIZATION;
+
+        String metricName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.example.dto.UserResponseDto;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class RequestTraceAspect {
+    @Around("execution(* org.example.service.UserService.*(..))")
+    public Object traceService(ProceedingJoinPoint call) throws Throwable {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.SERVICE);
+        try {
+            Object result = call.proceed();
+            if (result instanceof UserResponseDto user) {
+                RequestTrace.recordUserId(user.getId());
+            }
+            return result;
+        } finally {
+            RequestTrace.exit(previous);
+        }
+    }
+
+    @Around("execution(* org.example.mapper.UserMapper.*(..))")
+    public Object traceMapping(ProceedingJoinPoint call) throws Throwable {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.MAPPING);
+        try {
+            return call.proceed();
+        } finally {
+            RequestTrace.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Traces a request when Flight Recorder records {@link RequestPhasesEvent} or when
+ * {@code tracing.server-timing.enabled} is set; otherwise it only checks the event.
+ *
+ * <p>The {@code Server-Timing} header must be set before the body is sent, so with the header
+ * enabled the body is buffered until the request is done. Async responses are copied out on
+ * their async dispatch, the way {@code ShallowEtagHeaderFilter} does it. Event streams have no
+ * end to wait for and NDJSON streams must not be held in memory: a body of either content type
+ * goes straight to the client and gets no header, whatever the request's {@code Accept} asked
+ * for.
+ */
+@Component
+public class RequestTracingFilter extends OncePerRequestFilter {
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    private static final String USER_ID_VARIABLE = "id";
+    private static final List<MediaType> STREAMED_TYPES = List.of(MediaType.TEXT_EVENT_STREAM,
+            MediaType.APPLICATION_NDJSON);
+    private final boolean serverTiming;
+
+    public RequestTracingFilter(
+            @Value("${tracing.server-timing.enabled:false}") boolean serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            chain.doFilter(request, response);
+            copyBuffered(request, response);
+            return;
+        }
+        RequestPhasesEvent event = new RequestPhasesEvent();
+        if (!serverTiming && !event.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletResponse traced = serverTiming ? new TimedResponse(response) : response;
+        RequestTrace trace = RequestTrace.start();
+        event.begin();
+        try {
+            chain.doFilter(request, traced);
+        } finally {
+            trace.finish();
+            if (traced instanceof TimedResponse timed && !timed.isStreamed()
+                    && !isAsyncStarted(request)) {
+                traced.setHeader(SERVER_TIMING_HEADER, trace.serverTiming());
+                copyBuffered(request, traced);
+            }
+            if (event.shouldCommit()) {
+                event.record(endpoint(request), userId(request, trace), traced.getStatus(),
+                        trace);
+                event.commit();
+            }
+        }
+    }
+
+    private void copyBuffered(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        ContentCachingResponseWrapper buffered =
+                WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (buffered != null && !isAsyncStarted(request)) {
+            buffered.copyBodyToResponse();
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " "
+                + (pattern == null ? request.getRequestURI() : pattern.toString());
+    }
+
+    private static int userId(HttpServletRequest request, RequestTrace trace) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables instanceof Map<?, ?> map && map.get(USER_ID_VARIABLE) instanceof String id) {
+            try {
+                return Integer.parseInt(id);
+            } catch (NumberFormatException e) {
+                return trace.userId();
+            }
+        }
+        return trace.userId();
+    }
+
+    /**
+     * Buffers the body for the {@code Server-Timing} header unless the content type set when
+     * the body is first written is one of {@link #STREAMED_TYPES}; such a body and its flushes
+     * pass straight through.
+     */
+    private static final class TimedResponse extends ContentCachingResponseWrapper {
+        private Boolean streamed;
+
+        private TimedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return isStreamed() ? getResponse().getOutputStream() : super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            return isStreamed() ? getResponse().getWriter() : super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (isStreamed()) {
+                getResponse().flushBuffer();
+            } else {
+                super.flushBuffer();
+            }
+        }
+
+        private boolean isStreamed() {
+            if (streamed == null) {
+                String contentType = getContentType();
+                if (contentType == null) {
+                    return false;
+                }
+                try {
+                    MediaType type = MediaType.parseMediaType(contentType);
+                    streamed = STREAMED_TYPES.stream().anyMatch(each -> each.includes(type));
+                } catch (InvalidMediaTypeException e) {
+                    streamed = false;
+                }
+            }
+            return streamed;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Validator;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@RequiredArgsConstructor
+@Configuration
+public class TracingConfig implements WebMvcConfigurer {
+    private final jakarta.validation.Validator validator;
+
+    @Override
+    public Validator getValidator() {
+        return new TracingValidator(validator);
+    }
+}
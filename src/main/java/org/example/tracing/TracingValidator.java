@@ -0,0 +1,34 @@
+package org.example.tracing;
+
+import jakarta.validation.Validator;
+import org.springframework.validation.Errors;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+/**
+ * Bean Validation of controller arguments, charged to {@link RequestTrace.Phase#VALIDATION}.
+ */
+class TracingValidator extends SpringValidatorAdapter {
+    TracingValidator(Validator targetValidator) {
+        super(targetValidator);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.VALIDATION);
+        try {
+            super.validate(target, errors);
+        } finally {
+            RequestTrace.exit(previous);
+        }
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.VALIDATION);
+        try {
+            super.validate(target, errors, validationHints);
+        } finally {
+            RequestTrace.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.util;
+
+import java.util.Locale;
+
+public final class Emails {
+    private Emails() {
+    }
+
+    /**
+     * The key emails are compared by: {@code A@x.com } and {@code a@x.com} are the same address.
+     */
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
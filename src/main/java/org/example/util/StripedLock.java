@@ -0,0 +1,42 @@
+package org.example.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class StripedLock {
+    private final Lock[] stripes;
+    private final int mask;
+
+    public StripedLock(int minimumStripes) {
+        int size = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+        stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public Lock get(Object key) {
+        return stripes[indexOf(key)];
+    }
+
+    /**
+     * Returns the distinct stripes guarding the given keys in a fixed global order,
+     * so callers that lock them one by one can't deadlock each other.
+     */
+    public List<Lock> getAll(Collection<?> keys) {
+        return keys.stream()
+                .mapToInt(this::indexOf)
+                .sorted()
+                .distinct()
+                .mapToObj(i -> stripes[i])
+                .toList();
+    }
+
+    private int indexOf(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
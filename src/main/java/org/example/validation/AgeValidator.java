@@ -1,5 +1,7 @@
 package org.example.validation;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import java.time.LocalDate;
@@ -7,11 +9,18 @@ import java.time.Period;
 import org.springframework.beans.factory.annotation.Value;
 
 public class AgeValidator implements ConstraintValidator<OlderThan, LocalDate> {
+    private static final Timer TIMER = Timer.builder("user.validator")
+            .tag("validator", "age")
+            .register(Metrics.globalRegistry);
     @Value("${minimum.age}")
     private int minimumAge;
 
     @Override
     public boolean isValid(LocalDate birthDate, ConstraintValidatorContext context) {
+        return TIMER.record(() -> isOldEnough(birthDate));
+    }
+
+    private boolean isOldEnough(LocalDate birthDate) {
         if (birthDate == null) {
             return false;
         }
@@ -1,16 +1,25 @@
 package org.example.validation;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 public class DateValidator implements ConstraintValidator<CorrectFormat, LocalDate> {
+    private static final Timer TIMER = Timer.builder("user.validator")
+            .tag("validator", "date")
+            .register(Metrics.globalRegistry);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter
             .ofPattern("yyyy-MM-dd");
 
     @Override
     public boolean isValid(LocalDate birthDate, ConstraintValidatorContext context) {
+        return TIMER.record(() -> isCorrectFormat(birthDate));
+    }
+
+    private static boolean isCorrectFormat(LocalDate birthDate) {
         if (birthDate == null) {
             return false;
         }
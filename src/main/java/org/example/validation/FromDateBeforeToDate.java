@@ -12,6 +12,10 @@ import java.lang.annotation.Target;
 @Constraint(validatedBy = FromDateBeforeToDateValidator.class)
 public @interface FromDateBeforeToDate {
     String message() default "Invalid date range: 'From' date must be earlier than 'To' date.";
+    /**
+     * Whether a request with neither date is valid too. One date alone never is.
+     */
+    boolean optional() default false;
     Class<?>[] groups() default {};
     Class<? extends Payload>[] payload() default {};
 }
@@ -1,14 +1,32 @@
 package org.example.validation;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
-import org.example.dto.SearchByBirthDateRequestDto;
+import org.example.dto.BirthDateRange;
 
 public class FromDateBeforeToDateValidator implements ConstraintValidator<FromDateBeforeToDate,
-        SearchByBirthDateRequestDto> {
+        BirthDateRange> {
+    private static final Timer TIMER = Timer.builder("user.validator")
+            .tag("validator", "from-date-before-to-date")
+            .register(Metrics.globalRegistry);
+    private boolean optional;
+
+    @Override
+    public void initialize(FromDateBeforeToDate constraint) {
+        optional = constraint.optional();
+    }
+
     @Override
-    public boolean isValid(SearchByBirthDateRequestDto requestDto,
-                           ConstraintValidatorContext context) {
+    public boolean isValid(BirthDateRange requestDto, ConstraintValidatorContext context) {
+        return TIMER.record(() -> isOrdered(requestDto));
+    }
+
+    private boolean isOrdered(BirthDateRange requestDto) {
+        if (requestDto.getFromDate() == null && requestDto.getToDate() == null) {
+            return optional;
+        }
         if (requestDto.getFromDate() == null || requestDto.getToDate() == null) {
             return false;
         }
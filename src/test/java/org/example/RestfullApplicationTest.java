@@ -1,12 +1,58 @@
 package org.example;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
+import java.util.Map;
+import org.example.dto.UserRegistrationRequestDto;
+import org.example.dto.UserResponseDto;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 public class RestfullApplicationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Test
     void contextLoads() {
     }
+
+    @Test
+    void updateUserInfoPartially_MalformedEmail_BadRequest() throws Exception {
+        UserRegistrationRequestDto requestDto = new UserRegistrationRequestDto()
+                .setEmail("patched.email@ukr.net")
+                .setFirstName("Eric")
+                .setLastName("Brown")
+                .setBirthDate(LocalDate.parse("2002-03-14"))
+                .setAddress("Lisova, 12");
+        String registered = mockMvc.perform(post("/users/registration")
+                        .content(objectMapper.writeValueAsString(requestDto))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        int id = objectMapper.readValue(registered, UserResponseDto.class).getId();
+
+        mockMvc.perform(patch("/users/{id}", id)
+                        .content(objectMapper.writeValueAsString(Map.of("email", "not-an-email")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/users/{id}", id)
+                        .content(objectMapper.writeValueAsString(Map.of("address", "Nova, 1")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("patched.email@ukr.net"));
+    }
 }
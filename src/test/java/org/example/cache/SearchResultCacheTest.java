@@ -0,0 +1,155 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.example.dto.UserResponseDto;
+import org.example.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SearchResultCacheTest {
+    private static final LocalDate FROM_DATE = LocalDate.parse("1990-01-01");
+    private static final LocalDate TO_DATE = LocalDate.parse("2000-01-01");
+    private static final LocalDate OTHER_FROM_DATE = LocalDate.parse("2005-01-01");
+    private static final LocalDate OTHER_TO_DATE = LocalDate.parse("2010-01-01");
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("Repeated searches for a range are loaded once")
+    void get_SameRange_LoadedOnce() {
+        SearchResultCache cache = new SearchResultCache(60_000, 100);
+
+        Optional<List<UserResponseDto>> first = cache.get(FROM_DATE, TO_DATE, loader(3));
+        Optional<List<UserResponseDto>> second = cache.get(FROM_DATE, TO_DATE, loader(3));
+
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(new SearchResultCache.Stats(1, 1, 0, 0, 0, 1, 3), cache.stats());
+    }
+
+    @Test
+    @DisplayName("A change drops only the ranges that contain its birthdates")
+    void onChange_BirthDateInOneRange_OnlyThatRangeDropped() {
+        SearchResultCache cache = new SearchResultCache(60_000, 100);
+        cache.get(FROM_DATE, TO_DATE, loader(1));
+        cache.get(OTHER_FROM_DATE, OTHER_TO_DATE, loader(1));
+
+        cache.onChange(user("1995-06-01"), user("1995-06-02"));
+        cache.onChange(null, user("2000-01-01"));
+        cache.get(FROM_DATE, TO_DATE, loader(1));
+        cache.get(OTHER_FROM_DATE, OTHER_TO_DATE, loader(1));
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    @DisplayName("Concurrent misses for one range share a single load")
+    void get_ConcurrentMisses_Coalesced() throws Exception {
+        SearchResultCache cache = new SearchResultCache(60_000, 100);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<CompletableFuture<Optional<List<UserResponseDto>>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> cache.get(FROM_DATE, TO_DATE,
+                        () -> {
+                            loading.countDown();
+                            await(release);
+                            return loader(2).get();
+                        }), executor));
+                if (i == 0) {
+                    loading.await();
+                }
+            }
+            while (cache.stats().coalesced() < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (CompletableFuture<Optional<List<UserResponseDto>>> result : results) {
+                assertEquals(2, result.join().orElseThrow().size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("A change during a load keeps its result out of the cache")
+    void get_ChangeDuringLoad_ResultNotCached() {
+        SearchResultCache cache = new SearchResultCache(60_000, 100);
+
+        cache.get(FROM_DATE, TO_DATE, () -> {
+            cache.onChange(null, user("1995-06-01"));
+            return loader(1).get();
+        });
+        cache.get(FROM_DATE, TO_DATE, loader(1));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().hits());
+    }
+
+    @Test
+    @DisplayName("Expired results are loaded again")
+    void get_Expired_LoadedAgain() throws InterruptedException {
+        SearchResultCache cache = new SearchResultCache(1, 100);
+
+        cache.get(FROM_DATE, TO_DATE, loader(1));
+        Thread.sleep(5);
+        cache.get(FROM_DATE, TO_DATE, loader(1));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Results over the size bound are not cached, others evict the oldest entry")
+    void get_OverSizeBound_NotCachedOrOldestEvicted() {
+        SearchResultCache cache = new SearchResultCache(60_000, 4);
+
+        assertTrue(cache.get(FROM_DATE, TO_DATE, loader(5)).isEmpty());
+        cache.get(FROM_DATE, TO_DATE.plusDays(1), loader(3));
+        cache.get(OTHER_FROM_DATE, OTHER_TO_DATE, loader(3));
+
+        SearchResultCache.Stats stats = cache.stats();
+        assertEquals(1, stats.evictions());
+        assertEquals(3, stats.users());
+        cache.get(OTHER_FROM_DATE, OTHER_TO_DATE, loader(3));
+        assertEquals(1, cache.stats().hits());
+    }
+
+    private Supplier<List<UserResponseDto>> loader(int users) {
+        return () -> {
+            loads.incrementAndGet();
+            return Collections.nCopies(users, new UserResponseDto());
+        };
+    }
+
+    private static User user(String birthDate) {
+        return User.builder().birthDate(LocalDate.parse(birthDate)).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.dto.UserResponseDto;
+import org.example.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class UserJsonCacheTest {
+    private static final int USER_ID = 7;
+    private final UserJsonCache cache = new UserJsonCache(new ObjectMapper(), 100);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("Repeated reads of a user serialize it once")
+    void get_SameUser_SerializedOnce() {
+        UserJsonCache.CachedUser first = cache.get(USER_ID, this::load);
+        UserJsonCache.CachedUser second = cache.get(USER_ID, this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals("\"1\"", first.eTag());
+    }
+
+    @Test
+    @DisplayName("A change to the user drops its cached JSON")
+    void onChange_CachedUser_Reloaded() {
+        cache.get(USER_ID, this::load);
+
+        cache.onChange(User.builder().id(USER_ID).build(), User.builder().id(USER_ID).build());
+
+        assertEquals("\"2\"", cache.get(USER_ID, this::load).eTag());
+    }
+
+    @Test
+    @DisplayName("A load that races with a change is not kept")
+    void get_ChangedWhileLoading_NotCached() {
+        cache.get(USER_ID, id -> {
+            cache.onChange(User.builder().id(id).build(), null);
+            return load(id);
+        });
+
+        cache.get(USER_ID, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("A user rebuilt after a change never reuses the Last-Modified of the old JSON")
+    void onChange_SameSecond_LastModifiedNotReused() {
+        long before = cache.get(USER_ID, this::load).lastModified();
+
+        cache.onChange(User.builder().id(USER_ID).build(), User.builder().id(USER_ID).build());
+        long after = cache.get(USER_ID, this::load).lastModified();
+
+        assertTrue(after == UserJsonCache.NO_LAST_MODIFIED || after > before);
+    }
+
+    @Test
+    @DisplayName("A full cache evicts a user that wasn't read again before a recently read one")
+    void get_Full_RecentlyReadUserKept() {
+        UserJsonCache small = new UserJsonCache(new ObjectMapper(), 3);
+        for (int id = 1; id <= 3; id++) {
+            small.get(id, this::load);
+        }
+        small.get(1, this::load);
+
+        small.get(4, this::load);
+        final int loadsBefore = loads.get();
+        small.get(1, this::load);
+
+        assertEquals(3, small.size());
+        assertEquals(loadsBefore, loads.get());
+    }
+
+    private UserResponseDto load(int id) {
+        return new UserResponseDto().setId(id).setVersion(loads.incrementAndGet());
+    }
+}
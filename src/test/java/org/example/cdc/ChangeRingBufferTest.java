@@ -0,0 +1,56 @@
+package org.example.cdc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.example.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ChangeRingBufferTest {
+    @Test
+    @DisplayName("Events get increasing sequences and can be read until a lap overwrites them")
+    void get_PublishedEvents_ReadableForOneLap() {
+        ChangeRingBuffer buffer = new ChangeRingBuffer(3);
+
+        for (int id = 1; id <= 6; id++) {
+            buffer.publish(null, User.builder().id(id).build());
+        }
+
+        assertEquals(4, buffer.capacity());
+        assertEquals(7, buffer.nextSequence());
+        assertThrows(ChangeRingBuffer.OverrunException.class, () -> buffer.get(2));
+        assertEquals(3, buffer.get(3).userId());
+        assertEquals(6, buffer.get(6).userId());
+        assertNull(buffer.get(7));
+    }
+
+    @Test
+    @DisplayName("Concurrent writers each get a sequence of their own")
+    void publish_ConcurrentWriters_NoSequenceLost() throws InterruptedException {
+        ChangeRingBuffer buffer = new ChangeRingBuffer(4 * 1000);
+        List<Thread> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            int base = writer * 1000;
+            writers.add(new Thread(() -> {
+                for (int id = base; id < base + 1000; id++) {
+                    buffer.publish(null, User.builder().id(id).build());
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        long ids = 0;
+        for (long sequence = 1; sequence < buffer.nextSequence(); sequence++) {
+            ids += buffer.get(sequence).userId();
+        }
+        assertEquals(4001, buffer.nextSequence());
+        assertEquals(3999L * 4000 / 2, ids);
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.cdc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import org.example.cache.UserJsonCache;
+import org.example.controller.UserController;
+import org.example.mapper.UserMapper;
+import org.example.mapper.impl.UserMapperImpl;
+import org.example.model.User;
+import org.example.service.UserAggregatesService;
+import org.example.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class UserChangeStreamTest {
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final UserMapper MAPPER = new UserMapperImpl();
+    private UserChangeStream userChangeStream;
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void tearDown() {
+        userChangeStream.close();
+    }
+
+    @Test
+    @DisplayName("Subscribers get every change as it happens and can resume after the last id")
+    void subscribe_ChangesMade_PushedInOrderAndResumable() throws Exception {
+        setUp(16);
+        User registered = user(1, "Brown");
+        User updated = user(1, "Smith");
+        MockHttpServletResponse stream = subscribe(null);
+
+        userChangeStream.onChange(null, registered);
+        userChangeStream.onChange(registered, updated);
+        userChangeStream.onChange(updated, null);
+
+        List<String> events = awaitEvents(stream, 3);
+        assertTrue(events.get(0).contains("event:registered"));
+        assertTrue(events.get(0).contains("\"lastName\":\"Brown\""));
+        assertTrue(events.get(1).contains("event:updated"));
+        assertTrue(events.get(2).contains("event:deleted"));
+        assertTrue(events.get(2).contains("\"user\":null"));
+        List<String> resumed = awaitEvents(subscribe(id(events.get(0))), 2);
+        assertEquals(events.subList(1, 3), resumed);
+    }
+
+    @Test
+    @DisplayName("Subscribers resuming past the buffer or from another run are told to resync")
+    void subscribe_LastEventIdNoLongerBuffered_Resync() throws Exception {
+        setUp(4);
+        MockHttpServletResponse stream = subscribe(null);
+        userChangeStream.onChange(null, user(1, "Brown"));
+        String firstId = id(awaitEvents(stream, 1).get(0));
+        for (int id = 2; id <= 10; id++) {
+            userChangeStream.onChange(null, user(id, "Brown"));
+        }
+
+        List<String> overrun = awaitEvents(subscribe(firstId), 1);
+        List<String> restarted = awaitEvents(subscribe("1-1"), 1);
+
+        assertTrue(overrun.get(0).startsWith("event:" + UserChangeStream.RESYNC_EVENT));
+        assertTrue(restarted.get(0).startsWith("event:" + UserChangeStream.RESYNC_EVENT));
+    }
+
+    private void setUp(int bufferSize) {
+        userChangeStream = new UserChangeStream(MAPPER, bufferSize, 16, TIMEOUT_MILLIS, 60_000);
+        mockMvc = MockMvcBuilders.standaloneSetup(new UserController(mock(UserService.class),
+                mock(UserAggregatesService.class), mock(UserJsonCache.class),
+                new ObjectMapper().findAndRegisterModules(), userChangeStream)).build();
+    }
+
+    private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/users/changes")
+                .accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            builder.header(UserController.LAST_EVENT_ID_HEADER, lastEventId);
+        }
+        return mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private static List<String> awaitEvents(MockHttpServletResponse stream, int count)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            List<String> events = Arrays.stream(stream.getContentAsString().split("\n\n"))
+                    .filter(event -> !event.isBlank())
+                    .toList();
+            if (events.size() >= count || System.currentTimeMillis() > deadline) {
+                return events;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static String id(String event) {
+        return event.lines()
+                .filter(line -> line.startsWith("id:"))
+                .findFirst()
+                .orElseThrow()
+                .substring("id:".length());
+    }
+
+    private static User user(int id, String lastName) {
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@ukr.net")
+                .firstName("Eric")
+                .lastName(lastName)
+                .birthDate(LocalDate.parse("2000-01-01"))
+                .build();
+    }
+}
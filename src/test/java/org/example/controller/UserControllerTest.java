@@ -2,26 +2,50 @@ package org.example.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
+import org.example.cache.UserJsonCache;
+import org.example.cdc.UserChangeStream;
+import org.example.dto.BatchRegistrationResultDto;
+import org.example.dto.QueryPlanDto;
 import org.example.dto.SearchByBirthDateRequestDto;
+import org.example.dto.SearchByNameRequestDto;
+import org.example.dto.UserAggregatesDto;
+import org.example.dto.UserPageResponseDto;
+import org.example.dto.UserQueryRequestDto;
+import org.example.dto.UserQueryResponseDto;
 import org.example.dto.UserRegistrationRequestDto;
 import org.example.dto.UserResponseDto;
 import org.example.exception.EntityNotFoundException;
 import org.example.exception.RegistrationException;
 import org.example.exception.ValidationException;
+import org.example.exception.VersionConflictException;
+import org.example.service.UserAggregatesService;
 import org.example.service.UserService;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -29,11 +53,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(UserController.class)
+@Import(UserJsonCache.class)
 class UserControllerTest {
     private static final int INDEX_OF_UPDATING_USER = 2;
     private static final int INDEX_OF_DELETING_USER = 2;
@@ -58,6 +85,12 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserAggregatesService userAggregatesService;
+
+    @MockBean
+    private UserChangeStream userChangeStream;
+
     @BeforeAll
     static void beforeAll() {
         registrationRequestDto = new UserRegistrationRequestDto()
@@ -187,10 +220,40 @@ class UserControllerTest {
                 .andReturn();
     }
 
+    @Test
+    @DisplayName("Register a batch of users")
+    void registerAll_MixedBatch_PerItemResults() throws Exception {
+        List<UserRegistrationRequestDto> batch = List.of(registrationRequestDto,
+                notValidEmailRequestDto);
+        List<BatchRegistrationResultDto> expected = List.of(
+                new BatchRegistrationResultDto()
+                        .setIndex(0)
+                        .setStatus(BatchRegistrationResultDto.Status.CREATED)
+                        .setUser(registrationResponseDto),
+                new BatchRegistrationResultDto()
+                        .setIndex(1)
+                        .setStatus(BatchRegistrationResultDto.Status.REJECTED)
+                        .setErrors(List.of("email was formed not well.")));
+        when(userService.registerAll(batch)).thenReturn(expected);
+
+        MvcResult result = mockMvc.perform(
+                        post("/users/registration/batch")
+                                .content(objectMapper.writeValueAsString(batch))
+                                .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<BatchRegistrationResultDto> actual = objectMapper.readValue(result.getResponse()
+                .getContentAsString(), new TypeReference<List<BatchRegistrationResultDto>>() {
+                });
+        assertEquals(expected, actual);
+    }
+
     @Test
     @DisplayName("Update all user's info by id")
     void updateUserInfo_ValidRequestDto_Success() throws Exception {
-        when(userService.updateUserInfo(INDEX_OF_UPDATING_USER, updatingRequestDto))
+        when(userService.updateUserInfo(INDEX_OF_UPDATING_USER, updatingRequestDto, null))
                 .thenReturn(updatedResponseDto);
 
         String jsonRequest = objectMapper.writeValueAsString(updatingRequestDto);
@@ -211,7 +274,7 @@ class UserControllerTest {
     @Test
     @DisplayName("Update all user's info by not existing id")
     void updateUserInfo_NotExistingId_NotFound() throws Exception {
-        when(userService.updateUserInfo(INDEX_OF_NOT_EXISTING_USER, updatingRequestDto))
+        when(userService.updateUserInfo(INDEX_OF_NOT_EXISTING_USER, updatingRequestDto, null))
                 .thenThrow(new EntityNotFoundException("User not found"));
 
         String jsonRequest = objectMapper.writeValueAsString(updatingRequestDto);
@@ -227,7 +290,7 @@ class UserControllerTest {
     @Test
     @DisplayName("Update user's info partially by id")
     void updateUserInfoPartially_ValidRequestDto_Success() throws Exception {
-        when(userService.updateUserInfoPartially(INDEX_OF_UPDATING_USER, updateFields))
+        when(userService.updateUserInfoPartially(INDEX_OF_UPDATING_USER, updateFields, null))
                 .thenReturn(updatedPartiallyResponseDto);
 
         String jsonRequest = objectMapper.writeValueAsString(updateFields);
@@ -248,7 +311,7 @@ class UserControllerTest {
     @Test
     @DisplayName("Update user's info partially by not existing id")
     void updateUserInfoPartially_NotExistingId_NotFound() throws Exception {
-        when(userService.updateUserInfoPartially(INDEX_OF_NOT_EXISTING_USER, updateFields))
+        when(userService.updateUserInfoPartially(INDEX_OF_NOT_EXISTING_USER, updateFields, null))
                 .thenThrow(new EntityNotFoundException("User not found"));
 
         String jsonRequest = objectMapper.writeValueAsString(updateFields);
@@ -264,7 +327,8 @@ class UserControllerTest {
     @Test
     @DisplayName("Update user's info partially by id, empty first name")
     void updateUserInfoPartially_EmptyName_BadRequest() throws Exception {
-        when(userService.updateUserInfoPartially(INDEX_OF_UPDATING_USER, updateFieldsEmptyName))
+        when(userService.updateUserInfoPartially(INDEX_OF_UPDATING_USER, updateFieldsEmptyName,
+                null))
                 .thenThrow(new ValidationException("Empty first name"));
 
         String jsonRequest = objectMapper.writeValueAsString(updateFieldsEmptyName);
@@ -277,6 +341,114 @@ class UserControllerTest {
                 .andReturn();
     }
 
+    @Test
+    @DisplayName("Update with a matching If-Match returns the new version as ETag")
+    void updateUserInfo_IfMatch_ETagOfNewVersion() throws Exception {
+        when(userService.updateUserInfo(INDEX_OF_UPDATING_USER, updatingRequestDto, 4L))
+                .thenReturn(new UserResponseDto().setId(INDEX_OF_UPDATING_USER).setVersion(5));
+
+        mockMvc.perform(
+                        put("/users/{id}", INDEX_OF_UPDATING_USER)
+                                .header(HttpHeaders.IF_MATCH, "\"4\"")
+                                .content(objectMapper.writeValueAsString(updatingRequestDto))
+                                .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Update of a changed user responds with 412")
+    void updateUserInfoPartially_StaleIfMatch_PreconditionFailed() throws Exception {
+        when(userService.updateUserInfoPartially(INDEX_OF_UPDATING_USER, updateFields, 4L))
+                .thenThrow(new VersionConflictException("User 2 is at version 5, not 4"));
+
+        mockMvc.perform(
+                        patch("/users/{id}", INDEX_OF_UPDATING_USER)
+                                .header(HttpHeaders.IF_MATCH, "\"4\"")
+                                .content(objectMapper.writeValueAsString(updateFields))
+                                .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("Update with a weak or malformed If-Match responds with 412")
+    void updateUserInfo_MalformedIfMatch_PreconditionFailed() throws Exception {
+        for (String ifMatch : List.of("W/\"4\"", "4", "\"four\"")) {
+            mockMvc.perform(
+                            put("/users/{id}", INDEX_OF_UPDATING_USER)
+                                    .header(HttpHeaders.IF_MATCH, ifMatch)
+                                    .content(objectMapper.writeValueAsString(updatingRequestDto))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                    )
+                    .andExpect(status().isPreconditionFailed());
+        }
+    }
+
+    @Test
+    @DisplayName("Get user by id with ETag, then revalidate it with If-None-Match")
+    void getUser_IfNoneMatch_NotModifiedFromCache() throws Exception {
+        when(userService.getUser(INDEX_OF_UPDATING_USER))
+                .thenReturn(new UserResponseDto().setId(INDEX_OF_UPDATING_USER)
+                        .setEmail("some.email@ukr.net").setVersion(3));
+
+        mockMvc.perform(get("/users/{id}", INDEX_OF_UPDATING_USER))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(jsonPath("$.email").value("some.email@ukr.net"))
+                .andExpect(jsonPath("$.version").doesNotExist());
+        mockMvc.perform(
+                        get("/users/{id}", INDEX_OF_UPDATING_USER)
+                                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                )
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(userService, times(1)).getUser(INDEX_OF_UPDATING_USER);
+    }
+
+    @Test
+    @DisplayName("Get user by not existing id")
+    void getUser_NotExistingId_NotFound() throws Exception {
+        when(userService.getUser(INDEX_OF_NOT_EXISTING_USER))
+                .thenThrow(new EntityNotFoundException("Can't find user by id: "
+                        + INDEX_OF_NOT_EXISTING_USER));
+
+        mockMvc.perform(get("/users/{id}", INDEX_OF_NOT_EXISTING_USER))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.message").value("Can't find user by id: "
+                        + INDEX_OF_NOT_EXISTING_USER));
+    }
+
+    @Test
+    @DisplayName("Handled exceptions are counted by type, Spring's own ones included")
+    void getUser_NotExistingId_ErrorCounted() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        when(userService.getUser(INDEX_OF_NOT_EXISTING_USER))
+                .thenThrow(new EntityNotFoundException("Can't find user by id: "
+                        + INDEX_OF_NOT_EXISTING_USER));
+        try {
+            mockMvc.perform(get("/users/{id}", INDEX_OF_NOT_EXISTING_USER))
+                    .andExpect(status().isNotFound());
+
+            mockMvc.perform(post("/users/registration").contentType(MediaType.APPLICATION_JSON)
+                            .content("{"))
+                    .andExpect(status().isBadRequest());
+
+            assertEquals(1, registry.get("user.errors")
+                    .tag("exception", "EntityNotFoundException").counter().count());
+            assertEquals(1, registry.get("user.errors")
+                    .tag("exception", "HttpMessageNotReadableException").counter().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
     @Test
     @DisplayName("Delete user by id")
     void deleteUserById_ExistingId_NoContent() throws Exception {
@@ -291,9 +463,10 @@ class UserControllerTest {
     @DisplayName("Search users by birthdate range")
     void searchUsers_BirthDateRangeOk_Success() throws Exception {
         when(userService.searchByBirthDateRange(birthDateRangeRequestDto.getFromDate(),
-                birthDateRangeRequestDto.getToDate()))
-                .thenReturn(List.of(new UserResponseDto(), new UserResponseDto(),
-                        new UserResponseDto()));
+                birthDateRangeRequestDto.getToDate(), null,
+                SearchByBirthDateRequestDto.DEFAULT_PAGE_SIZE))
+                .thenReturn(new UserPageResponseDto().setUsers(List.of(new UserResponseDto(),
+                        new UserResponseDto(), new UserResponseDto())));
         int expectedSize = 3;
 
         MvcResult result = mockMvc.perform(
@@ -311,6 +484,198 @@ class UserControllerTest {
                     });
 
         assertEquals(expectedSize, actual.size());
+        assertNull(result.getResponse().getHeader(UserController.NEXT_PAGE_TOKEN_HEADER));
+    }
+
+    @Test
+    @DisplayName("Search users by birthdate range, next page token is returned in header")
+    void searchUsers_MorePagesAvailable_NextPageTokenHeader() throws Exception {
+        when(userService.searchByBirthDateRange(birthDateRangeRequestDto.getFromDate(),
+                birthDateRangeRequestDto.getToDate(), "previous-token", 2))
+                .thenReturn(new UserPageResponseDto()
+                        .setUsers(List.of(new UserResponseDto(), new UserResponseDto()))
+                        .setNextPageToken("next-token"));
+
+        MvcResult result = mockMvc.perform(
+                        get("/users/searchByBirthDateRange")
+                                .param("fromDate", String.valueOf(birthDateRangeRequestDto
+                                        .getFromDate()))
+                                .param("toDate", String.valueOf(birthDateRangeRequestDto
+                                        .getToDate()))
+                                .param("pageSize", "2")
+                                .param("pageToken", "previous-token")
+                )
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<UserResponseDto> actual = objectMapper.readValue(result.getResponse()
+                .getContentAsString(), new TypeReference<List<UserResponseDto>>() {
+                });
+        assertEquals(2, actual.size());
+        assertEquals("next-token",
+                result.getResponse().getHeader(UserController.NEXT_PAGE_TOKEN_HEADER));
+    }
+
+    @Test
+    @DisplayName("Search users by birthdate range, default Accept keeps JSON array")
+    void searchUsers_AnyAcceptHeader_JsonArray() throws Exception {
+        when(userService.searchByBirthDateRange(birthDateRangeRequestDto.getFromDate(),
+                birthDateRangeRequestDto.getToDate(), null,
+                SearchByBirthDateRequestDto.DEFAULT_PAGE_SIZE))
+                .thenReturn(new UserPageResponseDto().setUsers(List.of(registrationResponseDto)));
+
+        MvcResult result = mockMvc.perform(
+                        get("/users/searchByBirthDateRange")
+                                .param("fromDate", String.valueOf(birthDateRangeRequestDto
+                                        .getFromDate()))
+                                .param("toDate", String.valueOf(birthDateRangeRequestDto
+                                        .getToDate()))
+                                .accept(MediaType.ALL)
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        List<UserResponseDto> actual = objectMapper.readValue(result.getResponse()
+                .getContentAsString(), new TypeReference<List<UserResponseDto>>() {
+                });
+        assertEquals(List.of(registrationResponseDto), actual);
+    }
+
+    @Test
+    @DisplayName("Stream users by birthdate range as NDJSON")
+    void searchUsers_NdjsonAccepted_OneUserPerLine() throws Exception {
+        when(userService.streamByBirthDateRange(birthDateRangeRequestDto.getFromDate(),
+                birthDateRangeRequestDto.getToDate()))
+                .thenReturn(Stream.of(registrationResponseDto, updatedResponseDto));
+
+        MvcResult asyncResult = mockMvc.perform(
+                        get("/users/searchByBirthDateRange")
+                                .param("fromDate", String.valueOf(birthDateRangeRequestDto
+                                        .getFromDate()))
+                                .param("toDate", String.valueOf(birthDateRangeRequestDto
+                                        .getToDate()))
+                                .accept(MediaType.APPLICATION_NDJSON)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(registrationResponseDto,
+                objectMapper.readValue(lines[0], UserResponseDto.class));
+        assertEquals(updatedResponseDto,
+                objectMapper.readValue(lines[1], UserResponseDto.class));
+        assertTrue(result.getResponse().getContentAsString().endsWith("\n"));
+    }
+
+    @Test
+    @DisplayName("Search users by birthdate range, page size over the limit")
+    void searchUsers_PageSizeTooLarge_BadRequest() throws Exception {
+        mockMvc.perform(
+                        get("/users/searchByBirthDateRange")
+                                .param("fromDate", String.valueOf(birthDateRangeRequestDto
+                                        .getFromDate()))
+                                .param("toDate", String.valueOf(birthDateRangeRequestDto
+                                        .getToDate()))
+                                .param("pageSize", String.valueOf(
+                                        SearchByBirthDateRequestDto.MAX_PAGE_SIZE + 1))
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Search users by name prefix")
+    void searchByName_PrefixOk_ReturnListOfUsers() throws Exception {
+        when(userService.searchByNamePrefix("er", 5)).thenReturn(List.of(registrationResponseDto));
+
+        MvcResult result = mockMvc.perform(
+                        get("/users/searchByName")
+                                .param("prefix", "er")
+                                .param("limit", "5")
+                )
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<UserResponseDto> actual = objectMapper.readValue(result.getResponse()
+                .getContentAsString(), new TypeReference<List<UserResponseDto>>() {
+                });
+        assertEquals(List.of(registrationResponseDto), actual);
+    }
+
+    @Test
+    @DisplayName("Search users by blank name prefix or limit over the maximum")
+    void searchByName_NotValidRequest_BadRequest() throws Exception {
+        mockMvc.perform(get("/users/searchByName").param("prefix", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(
+                        get("/users/searchByName")
+                                .param("prefix", "er")
+                                .param("limit", String.valueOf(
+                                        SearchByNameRequestDto.MAX_LIMIT + 1))
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Query users with explain returns the plan")
+    void query_ExplainRequested_ReturnUsersAndPlan() throws Exception {
+        QueryPlanDto plan = new QueryPlanDto()
+                .setAccessPath("NAME_PREFIX_INDEX")
+                .setDrivingFilter("lastName starts with 'br'")
+                .setEstimatedRows(1)
+                .setRowsExamined(1)
+                .setResidualFilters(List.of("lastName starts with 'br'"))
+                .setEstimates(List.of());
+        UserQueryResponseDto expected = new UserQueryResponseDto()
+                .setUsers(List.of(registrationResponseDto))
+                .setPlan(plan);
+        when(userService.query(any(UserQueryRequestDto.class))).thenReturn(expected);
+
+        MvcResult result = mockMvc.perform(
+                        get("/users/query")
+                                .param("lastNamePrefix", "br")
+                                .param("explain", "true")
+                )
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals(expected, objectMapper.readValue(result.getResponse().getContentAsString(),
+                UserQueryResponseDto.class));
+    }
+
+    @Test
+    @DisplayName("Query users with half a birthdate range or a blank prefix")
+    void query_NotValidRequest_BadRequest() throws Exception {
+        mockMvc.perform(get("/users/query").param("fromDate", "1990-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/users/query").param("lastNamePrefix", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Get users per birth year and age bracket")
+    void aggregates_Ok_ReturnCounts() throws Exception {
+        UserAggregatesDto expected = new UserAggregatesDto()
+                .setUsers(1)
+                .setBirthYears(List.of(new UserAggregatesDto.BirthYear()
+                        .setYear(2000)
+                        .setUsers(1)))
+                .setAgeBrackets(List.of(new UserAggregatesDto.AgeBracket()
+                        .setFromAge(18)
+                        .setUsers(1)));
+        when(userAggregatesService.getAggregates()).thenReturn(expected);
+
+        MvcResult result = mockMvc.perform(get("/users/aggregates"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals(expected, objectMapper.readValue(result.getResponse().getContentAsString(),
+                UserAggregatesDto.class));
     }
 
     @Test
@@ -0,0 +1,75 @@
+package org.example.exception;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+class ErrorResponseTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Message body keeps the timestamp, status and message fields")
+    void toJson_Message_SameShapeAsMapBody() throws Exception {
+        JsonNode body = objectMapper.readTree(ErrorResponse.of(HttpStatus.NOT_FOUND,
+                "Can't find \"user\" by id:\n7 ☺").toJson());
+
+        assertEquals(List.of("timestamp", "status", "message"), fieldNames(body));
+        LocalDateTime.parse(body.get("timestamp").asText());
+        assertEquals("NOT_FOUND", body.get("status").asText());
+        assertEquals("Can't find \"user\" by id:\n7 ☺", body.get("message").asText());
+    }
+
+    @Test
+    @DisplayName("Errors body lists every error, a missing message is null")
+    void toJson_Errors_ArrayOfMessages() throws Exception {
+        JsonNode errors = objectMapper.readTree(ErrorResponse.of(HttpStatus.BAD_REQUEST,
+                List.of("email must be valid", "firstName must not be blank")).toJson());
+        JsonNode noMessage = objectMapper.readTree(
+                ErrorResponse.of(HttpStatus.BAD_REQUEST, (String) null).toJson());
+
+        assertEquals("BAD_REQUEST", errors.get("status").asText());
+        assertEquals("firstName must not be blank", errors.get("errors").get(1).asText());
+        assertTrue(noMessage.get("message").isNull());
+    }
+
+    @Test
+    @DisplayName("Timestamp is written as Jackson wrote a LocalDateTime, zero seconds included")
+    void toJson_Timestamp_SameAsJackson() throws Exception {
+        ObjectMapper jackson = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        for (LocalDateTime timestamp : List.of(LocalDateTime.parse("2024-05-01T10:00"),
+                LocalDateTime.parse("2024-05-01T10:00:07.1"),
+                LocalDateTime.parse("2024-05-01T10:00:07.123456789"))) {
+            assertEquals(jackson.writeValueAsString(timestamp),
+                    "\"" + objectMapper.readTree(ErrorResponse.of(HttpStatus.NOT_FOUND, "x")
+                            .toJson(timestamp)).get("timestamp").asText() + "\"");
+        }
+    }
+
+    @Test
+    @DisplayName("Domain exceptions carry no stack trace")
+    void domainException_NoStackTrace() {
+        assertEquals(0, new EntityNotFoundException("Can't find user by id: 7")
+                .getStackTrace().length);
+    }
+
+    private static List<String> fieldNames(JsonNode body) {
+        List<String> names = new ArrayList<>();
+        body.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class NamePrefixIndexTest {
+    private final UserRepository userRepository = new InMemoryUserRepository();
+
+    @Test
+    @DisplayName("Prefix matches first or last name, ignoring case, ordered by name then id")
+    void search_Prefix_MatchesBothNamesInOrder() {
+        userRepository.save(user(1, "Johanna", "Smith"));
+        userRepository.save(user(2, "Eric", "Jones"));
+        userRepository.save(user(3, "John", "Johnson"));
+        userRepository.save(user(4, "john", "Brown"));
+        NamePrefixIndex index = new NamePrefixIndex(userRepository);
+
+        assertEquals(List.of(1, 3, 4, 2), index.search(" JO", 10));
+        assertEquals(List.of(3, 4), index.search("john", 10));
+        assertEquals(List.of(1, 3), index.search("jo", 2));
+        assertEquals(List.of(), index.search("jx", 10));
+        assertEquals(5, index.estimate("jo"));
+        assertEquals(0, index.estimate("jx"));
+    }
+
+    @Test
+    @DisplayName("Searching after the last match pages through every name in order")
+    void searchAfter_Pages_CoverAllMatchesInOrder() {
+        userRepository.save(user(1, "Johanna", "Smith"));
+        userRepository.save(user(2, "Eric", "Jones"));
+        userRepository.save(user(3, "John", "Johnson"));
+        userRepository.save(user(4, "john", "Brown"));
+        NamePrefixIndex index = new NamePrefixIndex(userRepository);
+        List<NamePrefixIndex.Match> matches = new ArrayList<>();
+
+        NamePrefixIndex.Match last = null;
+        List<NamePrefixIndex.Match> page;
+        do {
+            page = index.searchAfter("jo", last, 2);
+            matches.addAll(page);
+            last = page.isEmpty() ? last : page.get(page.size() - 1);
+        } while (page.size() == 2);
+
+        assertEquals(List.of(new NamePrefixIndex.Match("johanna", 1),
+                new NamePrefixIndex.Match("john", 3), new NamePrefixIndex.Match("john", 4),
+                new NamePrefixIndex.Match("johnson", 3), new NamePrefixIndex.Match("jones", 2)),
+                matches);
+        assertEquals(List.of(), index.searchAfter("jo", new NamePrefixIndex.Match("k", 1), 2));
+        assertEquals(List.of(new NamePrefixIndex.Match("johanna", 1)),
+                index.searchAfter("jo", new NamePrefixIndex.Match("j", 9), 1));
+    }
+
+    @Test
+    @DisplayName("Changes move users between names and deletes prune the trie")
+    void onChange_RenameAndDelete_IndexFollows() {
+        NamePrefixIndex index = new NamePrefixIndex(userRepository);
+        User eric = user(1, "Eric", "Brown");
+        User renamed = user(1, "Erin", "Brown");
+        userRepository.save(eric);
+        index.onChange(null, eric);
+
+        userRepository.save(renamed);
+        index.onChange(eric, renamed);
+
+        assertEquals(List.of(), index.search("eric", 10));
+        assertEquals(List.of(1), index.search("eri", 10));
+        userRepository.deleteById(1);
+        index.onChange(renamed, null);
+        assertEquals(List.of(), index.search("b", 10));
+        assertEquals(1, index.nodeCount());
+    }
+
+    @Test
+    @DisplayName("Changes delivered out of order leave the names of the stored version")
+    void onChange_OutOfOrder_IndexMatchesRepository() {
+        NamePrefixIndex index = new NamePrefixIndex(userRepository);
+        User first = user(1, "Eric", "Brown");
+        User second = user(1, "Erin", "Brown");
+        final User third = user(1, "Erik", "Black");
+        userRepository.save(first);
+        index.onChange(null, first);
+        userRepository.save(second);
+        userRepository.save(third);
+
+        index.onChange(second, third);
+        index.onChange(first, second);
+
+        assertEquals(List.of(), index.search("erin", 10));
+        assertEquals(List.of(), index.search("brown", 10));
+        assertEquals(List.of(1), index.search("erik", 10));
+        assertEquals(List.of(1), index.search("black", 10));
+        assertEquals(2, index.estimate(""));
+    }
+
+    private static User user(int id, String firstName, String lastName) {
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@ukr.net")
+                .firstName(firstName)
+                .lastName(lastName)
+                .birthDate(LocalDate.parse("2000-01-01"))
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.example.index.NamePrefixIndex;
+import org.example.index.UserStatistics;
+import org.example.model.User;
+import org.example.query.QueryPlan.AccessPath;
+import org.example.query.QueryPlan.Estimate;
+import org.example.query.UserQuery.Condition;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class QueryPlannerTest {
+    private static final int USERS = 1000;
+    private final List<Integer> nameChunks = new ArrayList<>();
+    private QueryPlanner queryPlanner;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = new InMemoryUserRepository();
+        for (int id = 1; id <= USERS; id++) {
+            userRepository.save(User.builder()
+                    .id(id)
+                    .email("user" + id + "@ukr.net")
+                    .firstName(id % 100 == 0 ? "Rare" : "Common")
+                    .lastName(id % 2 == 0 ? "Smith" : "Brown")
+                    .birthDate(LocalDate.parse("1980-01-01").plusDays(id * 10L))
+                    .phoneNumber(id % 4 == 0 ? "+380501234567" : null)
+                    .build());
+        }
+        NamePrefixIndex namePrefixIndex = new NamePrefixIndex(userRepository) {
+            @Override
+            public List<Match> searchAfter(String prefix, Match after, int limit) {
+                List<Match> chunk = super.searchAfter(prefix, after, limit);
+                nameChunks.add(chunk.size());
+                return chunk;
+            }
+        };
+        queryPlanner = new QueryPlanner(userRepository, namePrefixIndex,
+                new UserStatistics(userRepository));
+    }
+
+    @Test
+    @DisplayName("A selective name prefix drives the query and stays a residual filter")
+    void plan_SelectiveNamePrefix_DrivenByNameIndex() {
+        UserQuery query = new UserQuery(LocalDate.parse("1980-01-01"),
+                LocalDate.parse("2010-01-01"), " RA", "smi", true);
+
+        QueryPlan plan = queryPlanner.plan(query);
+        final QueryResult result = queryPlanner.execute(plan, 100);
+
+        assertEquals(AccessPath.NAME_PREFIX_INDEX, plan.accessPath());
+        assertEquals(Condition.FIRST_NAME_PREFIX, plan.drivingCondition());
+        assertEquals(10, plan.estimatedRows());
+        assertEquals(List.of(Condition.BIRTH_DATE_RANGE, Condition.FIRST_NAME_PREFIX,
+                Condition.LAST_NAME_PREFIX, Condition.HAS_PHONE_NUMBER),
+                plan.residualConditions());
+        assertEquals(10, result.rowsExamined());
+        assertEquals(List.of(100, 200, 300, 400, 500, 600, 700, 800, 900, 1000),
+                result.users().stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("A narrow birthdate range drives the query and is not checked again")
+    void plan_NarrowBirthDateRange_DrivenByBirthDateIndex() {
+        UserQuery query = new UserQuery(LocalDate.parse("1980-01-01"),
+                LocalDate.parse("1980-12-31"), null, "Smith", null);
+
+        QueryPlan plan = queryPlanner.plan(query);
+        final QueryResult result = queryPlanner.execute(plan, 100);
+
+        assertEquals(AccessPath.BIRTH_DATE_INDEX, plan.accessPath());
+        assertEquals(36, plan.estimatedRows());
+        assertEquals(List.of(Condition.LAST_NAME_PREFIX), plan.residualConditions());
+        assertEquals(36, result.rowsExamined());
+        assertEquals(18, result.users().size());
+    }
+
+    @Test
+    @DisplayName("A condition no index serves is estimated but leaves a full scan")
+    void plan_OnlyPhoneNumber_FullScan() {
+        UserQuery query = new UserQuery(null, null, null, null, true);
+
+        QueryPlan plan = queryPlanner.plan(query);
+        final QueryResult result = queryPlanner.execute(plan, 5);
+
+        assertEquals(AccessPath.FULL_SCAN, plan.accessPath());
+        assertNull(plan.drivingCondition());
+        assertEquals(List.of(new Estimate(Condition.HAS_PHONE_NUMBER, null, 250),
+                new Estimate(null, AccessPath.FULL_SCAN, USERS)), plan.estimates());
+        assertEquals(5, result.users().size());
+        assertEquals(20, result.rowsExamined());
+    }
+
+    @Test
+    @DisplayName("A broad name prefix with a small limit reads one chunk of the index")
+    void execute_BroadNamePrefixSmallLimit_ReadsOneChunk() {
+        UserQuery query = new UserQuery(null, null, "common", null, null);
+
+        QueryPlan plan = queryPlanner.plan(query);
+        final QueryResult result = queryPlanner.execute(plan, 10);
+
+        assertEquals(AccessPath.NAME_PREFIX_INDEX, plan.accessPath());
+        assertEquals(990, plan.estimatedRows());
+        assertEquals(10, result.users().size());
+        assertEquals(List.of(10), nameChunks);
+    }
+
+    @Test
+    @DisplayName("Chunks of a driving birthdate range are fetched until the limit passes")
+    void execute_ResidualsRejectRows_FetchesFurtherChunks() {
+        UserQuery query = new UserQuery(LocalDate.parse("1980-01-01"),
+                LocalDate.parse("1980-12-31"), null, "Smith", null);
+
+        final QueryResult result = queryPlanner.execute(queryPlanner.plan(query), 5);
+
+        assertEquals(List.of(2, 4, 6, 8, 10),
+                result.users().stream().map(User::getId).toList());
+        assertEquals(10, result.rowsExamined());
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.example.model.User;
+import org.example.repository.impl.ColumnarUserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+class ColumnarUserRepositoryTest extends InMemoryUserRepositoryTest {
+    private static final int FOOTPRINT_USERS = 20_000;
+
+    @Override
+    UserRepository repository() {
+        return new ColumnarUserRepository();
+    }
+
+    @Test
+    @DisplayName("Users round-trip through the columns, including null and non-ASCII fields")
+    void findById_SavedUser_SameFields() {
+        UserRepository userRepository = repository();
+        User user = user(1, "ерік@ukr.net", "1965-03-01").toBuilder()
+                .lastName("Коваленко")
+                .address(null)
+                .phoneNumber("+380501234567")
+                .build();
+
+        userRepository.save(user);
+
+        assertEquals(user, userRepository.findById(1).orElseThrow());
+        assertEquals(user, userRepository.findByEmail("ерік@ukr.net").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Repeated updates compact dead rows and keep every index consistent")
+    void save_ManyUpdates_IndexesConsistent() {
+        UserRepository userRepository = repository();
+        int users = 500;
+        for (int round = 0; round < 10; round++) {
+            for (int id = 1; id <= users; id++) {
+                userRepository.save(user(id, "user" + id + "-" + round + "@ukr.net",
+                        LocalDate.parse("1990-01-01").plusDays(id + round).toString()));
+            }
+        }
+        for (int id = 1; id <= users; id += 2) {
+            userRepository.deleteById(id);
+        }
+
+        assertEquals(users / 2, userRepository.count());
+        assertEquals(users / 2, userRepository.findAll().size());
+        for (int id = 1; id <= users; id++) {
+            assertEquals(id % 2 == 0, userRepository.existsByEmail("user" + id + "-9@ukr.net"));
+            assertFalse(userRepository.existsByEmail("user" + id + "-8@ukr.net"));
+            assertEquals(id % 2 == 0, userRepository.findById(id).isPresent());
+        }
+        List<User> found = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("1900-01-01"), LocalDate.parse("2100-01-01")).toList();
+        assertEquals(IntStream.rangeClosed(1, users).filter(id -> id % 2 == 0).boxed().toList(),
+                ids(found));
+    }
+
+    @Test
+    @DisplayName("Columnar layout takes far less heap than the same users as objects")
+    void footprint_ManyUsers_SmallerThanObjectLayout() {
+        List<User> users = new ArrayList<>(FOOTPRINT_USERS);
+        for (int id = 1; id <= FOOTPRINT_USERS; id++) {
+            users.add(User.builder()
+                    .id(id)
+                    .email("user" + id + "@ukr.net")
+                    .firstName("First" + id)
+                    .lastName("Last" + id)
+                    .birthDate(LocalDate.ofEpochDay(id % 20_000))
+                    .address("Lisova, " + id)
+                    .phoneNumber("+38050" + (1_000_000 + id))
+                    .build());
+        }
+        UserRepository objects = new InMemoryUserRepository();
+        UserRepository columns = new ColumnarUserRepository();
+        objects.saveAll(users);
+        columns.saveAll(users);
+
+        long listBytes = GraphLayout.parseInstance(users).totalSize();
+        long objectRepositoryBytes = GraphLayout.parseInstance(objects).totalSize();
+        long columnarRepositoryBytes = GraphLayout.parseInstance(columns).totalSize();
+        users.clear();
+
+        System.out.printf("Heap for %d users: list of objects %d B, object repository %d B,"
+                        + " columnar repository %d B%n", FOOTPRINT_USERS, listBytes,
+                objectRepositoryBytes, columnarRepositoryBytes);
+        assertTrue(columnarRepositoryBytes * 2 < listBytes,
+                "Columnar " + columnarRepositoryBytes + " B vs list " + listBytes + " B");
+        assertTrue(columnarRepositoryBytes * 3 < objectRepositoryBytes,
+                "Columnar " + columnarRepositoryBytes + " B vs objects " + objectRepositoryBytes
+                        + " B");
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.example.model.User;
+import org.example.repository.impl.EmailFilteredUserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class EmailFilteredUserRepositoryTest extends InMemoryUserRepositoryTest {
+    private static final int USERS = 100_000;
+    private static final int ABSENT_EMAILS = 10_000;
+    private final AtomicInteger indexLookups = new AtomicInteger();
+
+    @Override
+    UserRepository repository() {
+        return new EmailFilteredUserRepository(new InMemoryUserRepository() {
+            @Override
+            public boolean existsByEmail(String email) {
+                indexLookups.incrementAndGet();
+                return super.existsByEmail(email);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Absent emails rarely reach the index, even past the filter's first capacity")
+    void existsByEmail_AbsentEmails_MostlyAnsweredByFilter() {
+        UserRepository userRepository = repository();
+        IntStream.rangeClosed(1, USERS).forEach(id -> userRepository.save(user(id)));
+
+        long found = IntStream.rangeClosed(1, ABSENT_EMAILS)
+                .filter(id -> userRepository.existsByEmail("absent" + id + "@ukr.net"))
+                .count();
+
+        assertEquals(0, found);
+        assertTrue(indexLookups.get() < ABSENT_EMAILS / 50, indexLookups + " index lookups");
+        assertTrue(IntStream.rangeClosed(1, USERS)
+                .allMatch(id -> userRepository.existsByEmail("user" + id + "@ukr.net")));
+    }
+
+    @Test
+    @DisplayName("Rebuilding after deletes forgets deleted emails and keeps saves made meanwhile")
+    void rebuild_AfterDeletesWithConcurrentSaves_NoEmailLost() {
+        EmailFilteredUserRepository userRepository =
+                (EmailFilteredUserRepository) repository();
+        IntStream.rangeClosed(1, 20_000).forEach(id -> userRepository.save(user(id)));
+        IntStream.rangeClosed(1, 15_000).forEach(userRepository::deleteById);
+
+        CompletableFuture<Void> saves = CompletableFuture.runAsync(() -> IntStream
+                .rangeClosed(20_001, 40_000).forEach(id -> userRepository.save(user(id))));
+        userRepository.rebuild();
+        saves.join();
+        indexLookups.set(0);
+
+        assertFalse(IntStream.rangeClosed(1, 15_000)
+                .anyMatch(id -> userRepository.existsByEmail("user" + id + "@ukr.net")));
+        assertTrue(indexLookups.get() < 15_000 / 50, indexLookups + " index lookups");
+        assertTrue(IntStream.rangeClosed(15_001, 40_000)
+                .allMatch(id -> userRepository.existsByEmail("user" + id + "@ukr.net")));
+    }
+
+    @Test
+    @DisplayName("A rebuild doesn't swap filters while a save sits between its two adds")
+    void rebuild_SaveInProgress_SwapWaitsForIt() throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EmailFilteredUserRepository userRepository =
+                new EmailFilteredUserRepository(new InMemoryUserRepository() {
+                    @Override
+                    public User save(User user) {
+                        saving.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return super.save(user);
+                    }
+                });
+        final CompletableFuture<User> save = CompletableFuture.supplyAsync(
+                () -> userRepository.save(user(1)));
+        saving.await();
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(userRepository::rebuild);
+        Thread.sleep(200);
+        assertFalse(rebuild.isDone());
+        release.countDown();
+        save.join();
+        rebuild.join();
+
+        assertTrue(userRepository.existsByEmail("user1@ukr.net"));
+    }
+
+    private static User user(int id) {
+        return user(id, "user" + id + "@ukr.net", "2000-01-01");
+    }
+}
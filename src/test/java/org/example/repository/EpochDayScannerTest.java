@@ -0,0 +1,68 @@
+package org.example.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.example.repository.impl.EpochDayPredicate;
+import org.example.repository.impl.EpochDayScanner;
+import org.example.repository.impl.ScalarEpochDayScanner;
+import org.example.repository.impl.VectorEpochDayScanner;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class EpochDayScannerTest {
+    private static final int ROWS = 1003;
+    private static final int[] DAYS = new Random(42).ints(ROWS, -25_000, 25_000).toArray();
+
+    @Test
+    @DisplayName("The vector scanner is used when the incubator module is present")
+    void create_VectorModuleAdded_VectorScanner() {
+        assertInstanceOf(VectorEpochDayScanner.class, EpochDayScanner.create());
+    }
+
+    @ParameterizedTest
+    @MethodSource("predicates")
+    @DisplayName("Vector and scalar scanners mark exactly the matching rows")
+    void scan_Predicate_SameBitmapAsRowByRow(EpochDayPredicate predicate) {
+        BitSet expected = new BitSet();
+        for (int row = 0; row < ROWS; row++) {
+            if (predicate.test(DAYS[row])) {
+                expected.set(row);
+            }
+        }
+
+        assertEquals(expected, scan(new ScalarEpochDayScanner(), predicate));
+        assertEquals(expected, scan(new VectorEpochDayScanner(), predicate));
+    }
+
+    @Test
+    @DisplayName("Scan leaves bits past the scanned rows untouched")
+    void scan_FewerRowsThanColumn_LaterBitsKept() {
+        long[] matches = {0, 0, -1L};
+
+        new VectorEpochDayScanner().scan(DAYS, 100, EpochDayPredicate.between(-1, -1), matches);
+
+        assertArrayEquals(new long[] {0, 0, -1L}, matches);
+    }
+
+    static Stream<EpochDayPredicate> predicates() {
+        return Stream.of(
+                EpochDayPredicate.between(-3_000, 12_000),
+                EpochDayPredicate.between(-3_000, 12_000).negate(),
+                EpochDayPredicate.between(-20_000, -15_000).or(0, 100).or(20_000, 30_000),
+                EpochDayPredicate.between(-20_000, -15_000).or(0, 100).negate(),
+                EpochDayPredicate.between(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    private static BitSet scan(EpochDayScanner scanner, EpochDayPredicate predicate) {
+        long[] matches = new long[(ROWS + Long.SIZE - 1) / Long.SIZE];
+        scanner.scan(DAYS, ROWS, predicate, matches);
+        return BitSet.valueOf(matches);
+    }
+}
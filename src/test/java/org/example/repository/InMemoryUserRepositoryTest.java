@@ -0,0 +1,163 @@
+package org.example.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.example.model.BirthDateCursor;
+import org.example.model.User;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class InMemoryUserRepositoryTest {
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = repository();
+    }
+
+    UserRepository repository() {
+        return new InMemoryUserRepository();
+    }
+
+    @Test
+    @DisplayName("Find user by id and email after save")
+    void save_NewUser_IndexedByIdAndEmail() {
+        User user = user(1, "first@ukr.net", "2000-01-01");
+
+        userRepository.save(user);
+
+        assertEquals(user, userRepository.findById(1).orElseThrow());
+        assertEquals(user, userRepository.findByEmail("first@ukr.net").orElseThrow());
+        assertTrue(userRepository.existsByEmail("first@ukr.net"));
+    }
+
+    @Test
+    @DisplayName("Save user with changed email, old email is released")
+    void save_ChangedEmail_OldEmailReleased() {
+        userRepository.save(user(1, "first@ukr.net", "2000-01-01"));
+
+        userRepository.save(user(1, "second@ukr.net", "2000-01-01"));
+
+        assertFalse(userRepository.existsByEmail("first@ukr.net"));
+        assertTrue(userRepository.existsByEmail("second@ukr.net"));
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    @DisplayName("Emails match regardless of case and surrounding spaces, as stored")
+    void findByEmail_OtherCase_SameUser() {
+        User user = user(1, "First.Last@Ukr.net", "2000-01-01");
+        userRepository.save(user);
+
+        userRepository.save(user(1, "first.last@ukr.NET", "2000-01-01"));
+
+        assertEquals("first.last@ukr.NET",
+                userRepository.findByEmail(" FIRST.LAST@UKR.NET ").orElseThrow().getEmail());
+        assertTrue(userRepository.existsByEmail("first.last@ukr.net"));
+        assertFalse(userRepository.existsByEmail("first.last@ukr.com"));
+    }
+
+    @Test
+    @DisplayName("Search by birthdate range excludes both bounds")
+    void findAllByBirthDateBetween_UsersOnBounds_Excluded() {
+        userRepository.save(user(1, "first@ukr.net", "2000-01-01"));
+        userRepository.save(user(2, "second@ukr.net", "2000-06-15"));
+        userRepository.save(user(3, "third@ukr.net", "2000-12-31"));
+
+        List<User> actual = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("2000-01-01"), LocalDate.parse("2000-12-31")).toList();
+
+        assertEquals(List.of(2), ids(actual));
+    }
+
+    @Test
+    @DisplayName("Search by birthdate range is ordered by birthdate, then by id")
+    void findAllByBirthDateBetween_SeveralUsers_OrderedByBirthDateAndId() {
+        userRepository.save(user(3, "third@ukr.net", "1965-03-01"));
+        userRepository.save(user(1, "first@ukr.net", "1980-07-20"));
+        userRepository.save(user(2, "second@ukr.net", "1965-03-01"));
+
+        List<User> actual = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("1960-01-01"), LocalDate.parse("1990-01-01")).toList();
+
+        assertEquals(List.of(2, 3, 1), ids(actual));
+    }
+
+    @Test
+    @DisplayName("Page through birthdate range with a cursor, ties on birthdate are kept")
+    void findAllByBirthDateBetween_WithCursor_ReturnUsersAfterCursor() {
+        userRepository.save(user(1, "first@ukr.net", "1980-07-20"));
+        userRepository.save(user(2, "second@ukr.net", "1965-03-01"));
+        userRepository.save(user(3, "third@ukr.net", "1965-03-01"));
+        userRepository.save(user(4, "fourth@ukr.net", "1999-12-31"));
+        LocalDate fromDate = LocalDate.parse("1960-01-01");
+        LocalDate toDate = LocalDate.parse("1990-01-01");
+
+        List<User> firstPage = userRepository.findAllByBirthDateBetween(fromDate, toDate,
+                null, 1);
+        List<User> secondPage = userRepository.findAllByBirthDateBetween(fromDate, toDate,
+                BirthDateCursor.of(firstPage.get(0)), 5);
+
+        assertEquals(List.of(2), ids(firstPage));
+        assertEquals(List.of(3, 1), ids(secondPage));
+    }
+
+    @Test
+    @DisplayName("Page through birthdate range with a cursor before the range start")
+    void findAllByBirthDateBetween_CursorBeforeRange_RangeStartUsed() {
+        userRepository.save(user(1, "first@ukr.net", "1980-07-20"));
+        BirthDateCursor cursor = new BirthDateCursor(LocalDate.parse("1900-01-01"), 7);
+
+        List<User> actual = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("1960-01-01"), LocalDate.parse("1990-01-01"), cursor, 5);
+
+        assertEquals(List.of(1), ids(actual));
+    }
+
+    @Test
+    @DisplayName("Save user with changed birthdate, user is moved in birthdate index")
+    void save_ChangedBirthDate_BirthDateIndexMoved() {
+        userRepository.save(user(1, "first@ukr.net", "2000-01-01"));
+
+        userRepository.save(user(1, "first@ukr.net", "1990-01-01"));
+
+        assertTrue(userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("1999-01-01"), LocalDate.parse("2001-01-01")).toList().isEmpty());
+        assertEquals(List.of(1), ids(userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("1989-01-01"), LocalDate.parse("1991-01-01")).toList()));
+    }
+
+    @Test
+    @DisplayName("Delete user by id, all indexes are cleaned")
+    void deleteById_ExistingUser_RemovedFromAllIndexes() {
+        userRepository.save(user(1, "first@ukr.net", "2000-01-01"));
+
+        assertTrue(userRepository.deleteById(1).isPresent());
+
+        assertTrue(userRepository.findById(1).isEmpty());
+        assertFalse(userRepository.existsByEmail("first@ukr.net"));
+        assertTrue(userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("1999-01-01"), LocalDate.parse("2001-01-01")).toList().isEmpty());
+        assertTrue(userRepository.deleteById(1).isEmpty());
+    }
+
+    static User user(int id, String email, String birthDate) {
+        return User.builder()
+                .id(id)
+                .email(email)
+                .firstName("Eric")
+                .lastName("Brown")
+                .birthDate(LocalDate.parse(birthDate))
+                .build();
+    }
+
+    static List<Integer> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
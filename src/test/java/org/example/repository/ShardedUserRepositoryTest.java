@@ -0,0 +1,121 @@
+package org.example.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.example.model.BirthDateCursor;
+import org.example.model.User;
+import org.example.repository.impl.ColumnarUserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.example.repository.impl.ShardedUserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ShardedUserRepositoryTest extends InMemoryUserRepositoryTest {
+    private static final int SHARDS = 4;
+    private static final LocalDate FROM_DATE = LocalDate.parse("1969-12-31");
+    private static final LocalDate TO_DATE = LocalDate.parse("1980-01-01");
+
+    @Override
+    UserRepository repository() {
+        return new ShardedUserRepository(SHARDS, InMemoryUserRepository::new);
+    }
+
+    @Test
+    @DisplayName("Search merges shard results in birthdate and id order")
+    void findAllByBirthDateBetween_ManyShards_MergedInOrder() {
+        List<User> users = users(2000);
+        UserRepository userRepository = repository();
+        userRepository.saveAll(users);
+
+        List<User> actual = userRepository.findAllByBirthDateBetween(FROM_DATE, TO_DATE)
+                .toList();
+
+        assertEquals(ids(expected(users)), ids(actual));
+        assertEquals(users.size(), userRepository.count());
+        assertEquals(users.size(), userRepository.findAll().size());
+    }
+
+    @Test
+    @DisplayName("The merged stream reads the shards only as far as it is consumed")
+    void findAllByBirthDateBetween_PartlyConsumed_ShardsReadLazily() {
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        UserRepository userRepository = new ShardedUserRepository(SHARDS,
+                () -> new InMemoryUserRepository() {
+                    @Override
+                    public Stream<User> findAllByBirthDateBetween(LocalDate fromDate,
+                                                                  LocalDate toDate) {
+                        return super.findAllByBirthDateBetween(fromDate, toDate)
+                                .peek(user -> read.incrementAndGet())
+                                .onClose(closed::incrementAndGet);
+                    }
+                });
+        List<User> users = users(2000);
+        userRepository.saveAll(users);
+
+        List<User> actual;
+        try (Stream<User> stream = userRepository.findAllByBirthDateBetween(FROM_DATE,
+                TO_DATE)) {
+            actual = stream.limit(10).toList();
+        }
+
+        assertEquals(ids(expected(users).subList(0, 10)), ids(actual));
+        assertTrue(read.get() <= 10 + SHARDS, "Read " + read.get() + " users");
+        assertEquals(SHARDS, closed.get());
+    }
+
+    @Test
+    @DisplayName("Paging over shards visits every user once in order")
+    void findAllByBirthDateBetween_PagesOverShards_SameAsUnsharded() {
+        for (Supplier<UserRepository> engine : List.<Supplier<UserRepository>>of(
+                InMemoryUserRepository::new, ColumnarUserRepository::new)) {
+            List<User> users = users(1000);
+            UserRepository userRepository = new ShardedUserRepository(SHARDS, engine);
+            userRepository.saveAll(users);
+            List<User> paged = new ArrayList<>();
+            BirthDateCursor cursor = null;
+            List<User> page;
+            do {
+                page = userRepository.findAllByBirthDateBetween(FROM_DATE, TO_DATE, cursor, 37);
+                paged.addAll(page);
+                cursor = page.isEmpty() ? null : BirthDateCursor.of(page.get(page.size() - 1));
+            } while (page.size() == 37);
+
+            assertEquals(ids(expected(users)), ids(paged));
+        }
+    }
+
+    @Test
+    @DisplayName("A shard count below one is rejected")
+    void constructor_NoShards_Exception() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShardedUserRepository(0, InMemoryUserRepository::new));
+    }
+
+    private static List<User> users(int count) {
+        Random random = new Random(7);
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(id -> user(id, "user" + id + "@ukr.net",
+                        LocalDate.ofEpochDay(random.nextInt(3650)).toString()))
+                .toList();
+    }
+
+    private static List<User> expected(List<User> users) {
+        return users.stream()
+                .filter(user -> user.getBirthDate().isAfter(FROM_DATE)
+                        && user.getBirthDate().isBefore(TO_DATE))
+                .sorted(Comparator.comparing(User::getBirthDate).thenComparing(User::getId))
+                .toList();
+    }
+}
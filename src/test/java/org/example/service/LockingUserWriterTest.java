@@ -0,0 +1,93 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.example.service.impl.LockingUserWriter;
+import org.example.storage.FileWriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LockingUserWriterTest {
+    @TempDir
+    private Path directory;
+    private UserRepository userRepository;
+    private FileWriteAheadLog writeAheadLog;
+    private List<User[]> changes;
+    private List<User[]> undos;
+    private LockingUserWriter userWriter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        userRepository = new InMemoryUserRepository();
+        writeAheadLog = new FileWriteAheadLog(directory, Duration.ofMillis(1));
+        writeAheadLog.start();
+        changes = new ArrayList<>();
+        undos = new ArrayList<>();
+        userWriter = new LockingUserWriter(userRepository, writeAheadLog,
+                List.of(new UserChangeListener() {
+                    @Override
+                    public void onChange(User before, User after) {
+                        changes.add(new User[] {before, after});
+                    }
+
+                    @Override
+                    public void onUndo(User undone, User restored) {
+                        undos.add(new User[] {undone, restored});
+                    }
+                }));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        writeAheadLog.close();
+    }
+
+    @Test
+    @DisplayName("Changes that can't be logged are undone and reported as undone")
+    void mutations_LogFails_Undone() throws IOException {
+        final User inserted = userWriter.insert(user(0));
+        writeAheadLog.close();
+
+        assertThrows(IllegalStateException.class, () -> userWriter.insert(user(1)));
+        assertThrows(IllegalStateException.class,
+                () -> userWriter.insertAll(List.of(user(2), user(3))));
+        assertThrows(IllegalStateException.class, () -> userWriter.update(1, null, null,
+                user -> user.toBuilder().address("Lisova, 13").build()));
+        assertThrows(IllegalStateException.class, () -> userWriter.delete(1));
+
+        assertEquals(1, userRepository.count());
+        assertEquals(inserted, userRepository.findById(1).orElseThrow());
+        for (int i = 1; i <= 3; i++) {
+            assertFalse(userRepository.existsByEmail(user(i).getEmail()));
+        }
+        assertEquals(1, changes.size());
+        assertEquals(5, undos.size());
+        assertEquals(inserted, undos.get(3)[1]);
+        assertEquals(2, undos.get(3)[0].getVersion());
+        assertEquals(inserted, undos.get(4)[1]);
+    }
+
+    private static User user(int index) {
+        return User.builder()
+                .email("user" + index + "@ukr.net")
+                .firstName("Eric")
+                .lastName("Brown")
+                .birthDate(LocalDate.of(1970, 1, 1).plusDays(index))
+                .address("Lisova, 12")
+                .build();
+    }
+}
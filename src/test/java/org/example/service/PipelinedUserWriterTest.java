@@ -0,0 +1,264 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.cache.UserJsonCache;
+import org.example.exception.EntityNotFoundException;
+import org.example.exception.RegistrationException;
+import org.example.exception.VersionConflictException;
+import org.example.mapper.UserMapper;
+import org.example.mapper.impl.UserMapperImpl;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.example.service.impl.PipelinedUserWriter;
+import org.example.storage.FileWriteAheadLog;
+import org.example.storage.LogRecord;
+import org.example.storage.NoOpWriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PipelinedUserWriterTest {
+    private static final int THREADS = 8;
+
+    @TempDir
+    private Path directory;
+    private UserRepository userRepository;
+    private FileWriteAheadLog writeAheadLog;
+    private List<User[]> changes;
+    private PipelinedUserWriter userWriter;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        userRepository = new InMemoryUserRepository();
+        writeAheadLog = new FileWriteAheadLog(directory, Duration.ofMillis(1));
+        writeAheadLog.start();
+        changes = new ArrayList<>();
+        userWriter = new PipelinedUserWriter(userRepository, writeAheadLog,
+                List.of((before, after) -> changes.add(new User[] {before, after})));
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        userWriter.close();
+        writeAheadLog.close();
+    }
+
+    @Test
+    @DisplayName("Parallel registrations are batched, one user per email, every one logged")
+    void insert_ParallelDuplicateEmails_BatchedAndLogged() throws Exception {
+        int emails = 5_000;
+        AtomicInteger rejected = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            tasks.add(() -> {
+                for (int i = 0; i < emails; i++) {
+                    try {
+                        userWriter.insert(user(i));
+                    } catch (RegistrationException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+
+        assertEquals(emails, userRepository.count());
+        assertEquals(emails * (THREADS - 1), rejected.get());
+        assertEquals(emails, changes.size());
+        assertTrue(userWriter.batchCount() < emails * THREADS,
+                "Expected fewer batches than mutations, got " + userWriter.batchCount());
+        userWriter.close();
+        writeAheadLog.close();
+        List<LogRecord> logged = new ArrayList<>();
+        try (FileWriteAheadLog replayed = new FileWriteAheadLog(directory, Duration.ZERO)) {
+            replayed.replay(0, logged::add);
+        }
+        assertEquals(emails, logged.size());
+    }
+
+    @Test
+    @DisplayName("Parallel versioned updates of one user, only one per version applies")
+    void update_ParallelSameVersion_OneWinsPerVersion() throws Exception {
+        userWriter.insert(user(0));
+        int rounds = 100;
+        AtomicInteger conflicts = new AtomicInteger();
+        for (int round = 0; round < rounds; round++) {
+            long version = round + 1;
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                String address = "Lisova, " + thread;
+                tasks.add(() -> {
+                    try {
+                        userWriter.update(1, version, null,
+                                user -> user.toBuilder().address(address).build());
+                    } catch (VersionConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        }
+
+        assertEquals(1 + rounds, userRepository.findById(1).orElseThrow().getVersion());
+        assertEquals(rounds * (THREADS - 1), conflicts.get());
+        assertEquals(1 + rounds, changes.size());
+    }
+
+    @Test
+    @DisplayName("A failing mutation doesn't affect the others and reaches its caller")
+    void delete_MissingUser_ThrowsAndOthersApply() {
+        User inserted = userWriter.insert(user(0));
+
+        assertThrows(EntityNotFoundException.class, () -> userWriter.delete(2));
+        assertThrows(RegistrationException.class, () -> userWriter.insert(user(0)));
+        assertEquals(inserted, userWriter.delete(1));
+        assertEquals(0, userRepository.count());
+        assertEquals(2, changes.size());
+        assertEquals(inserted, changes.get(1)[0]);
+    }
+
+    @Test
+    @DisplayName("Batch insert skips users whose email is taken")
+    void insertAll_SomeEmailsTaken_OnlyFreeOnesInserted() {
+        userWriter.insert(user(1));
+
+        List<User> inserted = userWriter.insertAll(List.of(user(0), user(1), user(2)));
+
+        assertEquals(List.of(user(0).getEmail(), user(2).getEmail()), inserted.stream()
+                .map(User::getEmail)
+                .toList());
+        assertEquals(List.of(2, 3), inserted.stream().map(User::getId).toList());
+        assertEquals(3, userRepository.count());
+    }
+
+    @Test
+    @DisplayName("A closed writer rejects mutations")
+    void insert_Closed_ThrowsIllegalState() {
+        userWriter.close();
+
+        assertThrows(IllegalStateException.class, () -> userWriter.insert(user(0)));
+    }
+
+    @Test
+    @DisplayName("A batch that can't be logged is undone and reported to no listener")
+    void update_LogFails_BatchUndone() throws IOException {
+        final User inserted = userWriter.insert(user(0));
+        writeAheadLog.close();
+
+        assertThrows(IllegalStateException.class, () -> userWriter.insert(user(1)));
+        assertThrows(IllegalStateException.class, () -> userWriter.update(1, null, null,
+                user -> user.toBuilder().address("Lisova, 13").build()));
+        assertThrows(IllegalStateException.class, () -> userWriter.delete(1));
+
+        assertEquals(1, userRepository.count());
+        assertEquals(inserted, userRepository.findById(1).orElseThrow());
+        assertFalse(userRepository.existsByEmail(user(1).getEmail()));
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    @DisplayName("A read during a commit that fails doesn't leave the undone user cached")
+    void update_ReadDuringFailingCommit_CacheDropsUndoneUser() throws Exception {
+        CompletableFuture<Void> commit = new CompletableFuture<>();
+        UserJsonCache cache = new UserJsonCache(new ObjectMapper().findAndRegisterModules(), 10);
+        UserMapper userMapper = new UserMapperImpl();
+        AtomicBoolean failing = new AtomicBoolean();
+        PipelinedUserWriter gatedWriter = new PipelinedUserWriter(userRepository,
+                new NoOpWriteAheadLog() {
+                    @Override
+                    public CompletableFuture<Void> appendAll(List<LogRecord> records) {
+                        return failing.get() ? commit : super.appendAll(records);
+                    }
+                }, List.of(cache));
+        try {
+            gatedWriter.insert(user(0));
+            failing.set(true);
+            final Future<User> update = executor.submit(() -> gatedWriter.update(1, null, null,
+                    user -> user.toBuilder().address("Lisova, 13").build()));
+            while (userRepository.findById(1).orElseThrow().getVersion() == 1) {
+                Thread.onSpinWait();
+            }
+            assertEquals("\"2\"", cache.get(1, id -> userMapper.toDto(
+                    userRepository.findById(id).orElseThrow())).eTag());
+
+            commit.completeExceptionally(new IllegalStateException("Disk full"));
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> update.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IllegalStateException);
+            assertEquals("\"1\"", cache.get(1, id -> userMapper.toDto(
+                    userRepository.findById(id).orElseThrow())).eTag());
+        } finally {
+            gatedWriter.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Mutations racing with close all return or fail")
+    void insert_ConcurrentClose_EveryCallCompletes() throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int offset = thread * 1000;
+            tasks.add(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    try {
+                        userWriter.insert(user(offset + i));
+                    } catch (IllegalStateException e) {
+                        // closed
+                    }
+                }
+                return null;
+            });
+        }
+
+        List<Future<Void>> futures = tasks.stream().map(executor::submit).toList();
+        userWriter.close();
+
+        for (Future<Void> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static User user(int index) {
+        return User.builder()
+                .email("user" + index + "@ukr.net")
+                .firstName("Eric")
+                .lastName("Brown")
+                .birthDate(LocalDate.of(1970, 1, 1).plusDays(index))
+                .address("Lisova, 12")
+                .build();
+    }
+}
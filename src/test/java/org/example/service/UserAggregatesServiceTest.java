@@ -0,0 +1,79 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.example.dto.UserAggregatesDto;
+import org.example.index.UserStatistics;
+import org.example.model.User;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.example.service.impl.UserAggregatesServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class UserAggregatesServiceTest {
+    private static final LocalDate TODAY = LocalDate.parse("2024-06-15");
+    private UserStatistics userStatistics;
+    private UserAggregatesService userAggregatesService;
+
+    @BeforeEach
+    void setUp() {
+        userStatistics = new UserStatistics(new InMemoryUserRepository());
+        userAggregatesService = new UserAggregatesServiceImpl(userStatistics, 18, 10, 3);
+    }
+
+    @Test
+    @DisplayName("Users are counted by birth year and by age, with birthdays on the boundary")
+    void getAggregates_Users_CountedByBirthYearAndAgeBracket() {
+        userStatistics.onChange(null, user(1, "2006-06-15"));
+        userStatistics.onChange(null, user(2, "1996-06-16"));
+        userStatistics.onChange(null, user(3, "1996-06-15"));
+        userStatistics.onChange(null, user(4, "1950-01-01"));
+
+        UserAggregatesDto actual = userAggregatesService.getAggregates(TODAY);
+
+        assertEquals(4, actual.getUsers());
+        assertEquals(List.of(birthYear(1950, 1), birthYear(1996, 2), birthYear(2006, 1)),
+                actual.getBirthYears());
+        assertEquals(List.of(bracket(0, 17, 0), bracket(18, 27, 2), bracket(28, 37, 1),
+                bracket(38, null, 1)), actual.getAgeBrackets());
+    }
+
+    @Test
+    @DisplayName("Updates and deletes move users between counts")
+    void getAggregates_UpdatedAndDeletedUsers_CountsFollow() {
+        User user = user(1, "2000-01-01");
+        User older = user(1, "1980-01-01");
+        User other = user(2, "2000-03-01");
+        userStatistics.onChange(null, user);
+        userStatistics.onChange(null, other);
+
+        userStatistics.onChange(user, older);
+        userStatistics.onChange(other, null);
+        UserAggregatesDto actual = userAggregatesService.getAggregates(TODAY);
+
+        assertEquals(1, actual.getUsers());
+        assertEquals(List.of(birthYear(1980, 1)), actual.getBirthYears());
+        assertEquals(List.of(bracket(0, 17, 0), bracket(18, 27, 0), bracket(28, 37, 0),
+                bracket(38, null, 1)), actual.getAgeBrackets());
+    }
+
+    private static User user(int id, String birthDate) {
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@ukr.net")
+                .birthDate(LocalDate.parse(birthDate))
+                .build();
+    }
+
+    private static UserAggregatesDto.BirthYear birthYear(int year, int users) {
+        return new UserAggregatesDto.BirthYear().setYear(year).setUsers(users);
+    }
+
+    private static UserAggregatesDto.AgeBracket bracket(int fromAge, Integer toAge, int users) {
+        return new UserAggregatesDto.AgeBracket().setFromAge(fromAge).setToAge(toAge)
+                .setUsers(users);
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.cache.SearchResultCache;
+import org.example.dto.UserRegistrationRequestDto;
+import org.example.exception.RegistrationException;
+import org.example.exception.VersionConflictException;
+import org.example.index.NamePrefixIndex;
+import org.example.index.UserStatistics;
+import org.example.mapper.impl.UserMapperImpl;
+import org.example.model.User;
+import org.example.query.QueryPlanner;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.example.service.impl.LockingUserWriter;
+import org.example.service.impl.UserPatcher;
+import org.example.service.impl.UserServiceImpl;
+import org.example.storage.NoOpWriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class UserServiceConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int DISTINCT_EMAILS = 2_000;
+    private static final int STRESS_DISTINCT_EMAILS = 1_000_000;
+    private static final int ATTEMPTS_PER_EMAIL = 4;
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory()
+            .getValidator();
+    private UserRepository userRepository;
+    private NamePrefixIndex namePrefixIndex;
+    private UserService userService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = new InMemoryUserRepository();
+        namePrefixIndex = new NamePrefixIndex(userRepository);
+        UserStatistics userStatistics = new UserStatistics(userRepository);
+        userService = new UserServiceImpl(new UserMapperImpl(), userRepository,
+                VALIDATOR, new UserPatcher(VALIDATOR, 18),
+                new LockingUserWriter(userRepository, new NoOpWriteAheadLog(),
+                        List.of(namePrefixIndex, userStatistics)),
+                new SearchResultCache(0, 0), namePrefixIndex,
+                new QueryPlanner(userRepository, namePrefixIndex, userStatistics));
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Register the same emails from many threads, ids and emails stay unique")
+    void register_ParallelDuplicateEmails_OneUserPerEmail() throws Exception {
+        registerInParallel(DISTINCT_EMAILS);
+    }
+
+    @Test
+    @Tag("stress")
+    @DisplayName("Register millions of times from many threads, ids and emails stay unique")
+    void register_MillionsOfParallelDuplicateEmails_OneUserPerEmail() throws Exception {
+        registerInParallel(STRESS_DISTINCT_EMAILS);
+    }
+
+    @Test
+    @DisplayName("Change many users' email to the same address in parallel, only one wins")
+    void updateUserInfo_ParallelSameNewEmail_OnlyOneSucceeds() throws Exception {
+        int users = THREADS * 100;
+        for (int i = 0; i < users; i++) {
+            userService.register(requestDto(i));
+        }
+        AtomicInteger updated = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int id = 1; id <= users; id++) {
+            int userId = id;
+            tasks.add(() -> {
+                try {
+                    userService.updateUserInfo(userId, requestDto(0).setEmail("shared@ukr.net"));
+                    updated.incrementAndGet();
+                } catch (RegistrationException e) {
+                    // expected for every thread but the winner
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+
+        assertEquals(1, updated.get());
+        assertEquals(users, userRepository.count());
+        long owners = userRepository.findAll().stream()
+                .filter(user -> user.getEmail().equals("shared@ukr.net"))
+                .count();
+        assertEquals(1, owners);
+    }
+
+    @Test
+    @DisplayName("Patch one user from many threads, every patch lands in its own version")
+    void updateUserInfoPartially_ParallelSameUser_NoLostUpdates() throws Exception {
+        int patches = THREADS * 200;
+        userService.register(requestDto(0));
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int patch = 0; patch < patches; patch++) {
+            String address = "Lisova, " + patch;
+            tasks.add(() -> {
+                userService.updateUserInfoPartially(1, Map.of("address", address));
+                try {
+                    userService.updateUserInfoPartially(1, Map.of("address", address), 1L);
+                } catch (VersionConflictException e) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+
+        assertEquals(1 + patches, userRepository.findById(1).orElseThrow().getVersion());
+        assertEquals(patches, conflicts.get());
+    }
+
+    @Test
+    @DisplayName("Patch names of a few users from many threads, the name index follows the store")
+    void updateUserInfoPartially_ParallelNameChanges_IndexMatchesRepository() throws Exception {
+        int users = 4;
+        int patches = THREADS * 100;
+        for (int i = 0; i < users; i++) {
+            userService.register(requestDto(i));
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int patch = 0; patch < patches; patch++) {
+            int userId = 1 + patch % users;
+            String firstName = "First" + patch;
+            String lastName = "Last" + patch % 7;
+            tasks.add(() -> {
+                userService.updateUserInfoPartially(userId,
+                        Map.of("firstName", firstName, "lastName", lastName));
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+
+        int indexedNames = 0;
+        for (User user : userRepository.findAll()) {
+            assertTrue(namePrefixIndex.search(user.getFirstName(), patches)
+                    .contains(user.getId()));
+            assertTrue(namePrefixIndex.search(user.getLastName(), patches)
+                    .contains(user.getId()));
+            indexedNames += 2;
+        }
+        assertEquals(indexedNames, namePrefixIndex.estimate(""));
+    }
+
+    private void registerInParallel(int distinctEmails) throws Exception {
+        int attempts = distinctEmails * ATTEMPTS_PER_EMAIL;
+        AtomicInteger rejected = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int offset = thread;
+            tasks.add(() -> {
+                for (int attempt = offset; attempt < attempts; attempt += THREADS) {
+                    try {
+                        userService.register(requestDto(attempt / ATTEMPTS_PER_EMAIL));
+                    } catch (RegistrationException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+
+        assertEquals(distinctEmails, userRepository.count());
+        assertEquals(attempts - distinctEmails, rejected.get());
+        boolean[] seenIds = new boolean[distinctEmails + 1];
+        for (User user : userRepository.findAll()) {
+            assertTrue(user.getId() >= 1 && user.getId() <= distinctEmails);
+            assertTrue(!seenIds[user.getId()], "Duplicate id " + user.getId());
+            seenIds[user.getId()] = true;
+        }
+        for (int i = 0; i < distinctEmails; i++) {
+            assertTrue(userRepository.existsByEmail(email(i)));
+        }
+    }
+
+    private static UserRegistrationRequestDto requestDto(int index) {
+        return new UserRegistrationRequestDto()
+                .setEmail(email(index))
+                .setFirstName("Eric")
+                .setLastName("Brown")
+                .setBirthDate(LocalDate.of(1970, 1, 1).plusDays(index % 10_000))
+                .setAddress("Lisova, 12");
+    }
+
+    private static String email(int index) {
+        return "user" + index + "@ukr.net";
+    }
+}
@@ -1,23 +1,43 @@
 package org.example.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.example.cache.SearchResultCache;
+import org.example.dto.BatchRegistrationResultDto;
+import org.example.dto.BatchRegistrationResultDto.Status;
+import org.example.dto.UserPageResponseDto;
+import org.example.dto.UserQueryRequestDto;
+import org.example.dto.UserQueryResponseDto;
 import org.example.dto.UserRegistrationRequestDto;
 import org.example.dto.UserResponseDto;
 import org.example.exception.EntityNotFoundException;
 import org.example.exception.RegistrationException;
 import org.example.exception.ValidationException;
+import org.example.exception.VersionConflictException;
+import org.example.index.NamePrefixIndex;
+import org.example.index.UserStatistics;
 import org.example.mapper.UserMapper;
 import org.example.model.User;
+import org.example.query.QueryPlanner;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.example.service.impl.LockingUserWriter;
+import org.example.service.impl.UserPatcher;
 import org.example.service.impl.UserServiceImpl;
-import org.example.storage.Storage;
-import org.junit.jupiter.api.AfterEach;
+import org.example.service.impl.UserWriter;
+import org.example.storage.NoOpWriteAheadLog;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -25,8 +45,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 public class UserServiceTest {
@@ -51,6 +71,33 @@ public class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Spy
+    private UserRepository userRepository = new InMemoryUserRepository();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private UserPatcher userPatcher = new UserPatcher(validator, 18);
+
+    @Spy
+    private SearchResultCache searchResultCache = new SearchResultCache(60_000, 1_000);
+
+    @Spy
+    private NamePrefixIndex namePrefixIndex = new NamePrefixIndex(userRepository);
+
+    private final UserStatistics userStatistics = new UserStatistics(userRepository);
+
+    @Spy
+    private QueryPlanner queryPlanner = new QueryPlanner(userRepository, namePrefixIndex,
+            userStatistics);
+
+    private final List<UserChangeListener> changeListeners = new ArrayList<>();
+
+    @Spy
+    private UserWriter userWriter = new LockingUserWriter(userRepository,
+            new NoOpWriteAheadLog(), changeListeners);
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -63,12 +110,13 @@ public class UserServiceTest {
                 .setBirthDate(LocalDate.parse("2002-03-14"))
                 .setAddress("Lisova, 12");
 
-        user = new User()
-                .setEmail("some.email@ukr.net")
-                .setFirstName("Eric")
-                .setLastName("Brown")
-                .setBirthDate(LocalDate.parse("2002-03-14"))
-                .setAddress("Lisova, 12");
+        user = User.builder()
+                .email("some.email@ukr.net")
+                .firstName("Eric")
+                .lastName("Brown")
+                .birthDate(LocalDate.parse("2002-03-14"))
+                .address("Lisova, 12")
+                .build();
 
         updatingRequestDto = new UserRegistrationRequestDto()
                 .setEmail("some.email@ukr.net")
@@ -94,21 +142,23 @@ public class UserServiceTest {
         notValidBirthDate = new HashMap<>();
         notValidBirthDate.put("birthDate", "2010-04-12");
 
-        savedUser = new User()
-                .setId(1)
-                .setEmail("some.email@ukr.net")
-                .setFirstName("Eric")
-                .setLastName("Brown")
-                .setBirthDate(LocalDate.parse("2002-03-14"))
-                .setAddress("Lisova, 12");
-
-        savedUser2 = new User()
-                .setId(2)
-                .setEmail("some.existing.email@ukr.net")
-                .setFirstName("Mark")
-                .setLastName("Lumberg")
-                .setBirthDate(LocalDate.parse("1996-06-19"))
-                .setAddress("NewStreet, 345");
+        savedUser = User.builder()
+                .id(1)
+                .email("some.email@ukr.net")
+                .firstName("Eric")
+                .lastName("Brown")
+                .birthDate(LocalDate.parse("2002-03-14"))
+                .address("Lisova, 12")
+                .build();
+
+        savedUser2 = User.builder()
+                .id(2)
+                .email("some.existing.email@ukr.net")
+                .firstName("Mark")
+                .lastName("Lumberg")
+                .birthDate(LocalDate.parse("1996-06-19"))
+                .address("NewStreet, 345")
+                .build();
 
         registrationResponseDto = new UserResponseDto()
                 .setId(1)
@@ -126,21 +176,25 @@ public class UserServiceTest {
                 .setBirthDate(LocalDate.parse("1996-06-19"))
                 .setAddress("NewStreet, 345");
 
-        updatedUser = new User()
-                .setId(1)
-                .setEmail("some.email@ukr.net")
-                .setFirstName("Eric")
-                .setLastName("Brown-Smith")
-                .setBirthDate(LocalDate.parse("2002-03-14"))
-                .setAddress("Svobody, 42");
-
-        updatedUserPartially = new User()
-                .setId(1)
-                .setEmail("some.email@ukr.net")
-                .setFirstName("Eric")
-                .setLastName("AnotherLastName")
-                .setBirthDate(LocalDate.parse("2002-03-14"))
-                .setAddress("AnotherAddress, 111");
+        updatedUser = User.builder()
+                .id(1)
+                .email("some.email@ukr.net")
+                .firstName("Eric")
+                .lastName("Brown-Smith")
+                .birthDate(LocalDate.parse("2002-03-14"))
+                .address("Svobody, 42")
+                .version(1)
+                .build();
+
+        updatedUserPartially = User.builder()
+                .id(1)
+                .email("some.email@ukr.net")
+                .firstName("Eric")
+                .lastName("AnotherLastName")
+                .birthDate(LocalDate.parse("2002-03-14"))
+                .address("AnotherAddress, 111")
+                .version(1)
+                .build();
 
         updatedResponseDto = new UserResponseDto()
                 .setId(1)
@@ -161,19 +215,17 @@ public class UserServiceTest {
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(userService, "minimumAge", 18);
-    }
-
-    @AfterEach
-    void tearDown() {
-        Storage.userStorage.clear();
+        changeListeners.add(searchResultCache);
+        changeListeners.add(namePrefixIndex);
+        changeListeners.add(userStatistics);
     }
 
     @Test
     @DisplayName("Register a new user")
     public void register_ValidUserRegistrationRequestDto_ReturnUserResponseDto() {
         when(userMapper.toModel(registrationRequestDto)).thenReturn(user);
-        when(userMapper.toDto(user)).thenReturn(registrationResponseDto);
+        when(userMapper.toDto(user.toBuilder().id(1).version(1).build()))
+                .thenReturn(registrationResponseDto);
 
         UserResponseDto actual = userService.register(registrationRequestDto);
 
@@ -183,7 +235,10 @@ public class UserServiceTest {
     @Test
     @DisplayName("Register a new user, emil is exist")
     public void register_EmailIdExist_RegistrationExceptionExpected() {
-        Storage.userStorage.add(savedUser);
+        userRepository.save(savedUser);
+        when(userMapper.toModel(registrationRequestDto)).thenReturn(User.builder()
+                .email(registrationRequestDto.getEmail())
+                .build());
         String expectedMessage = "Can't register user";
 
         Exception exception = assertThrows(
@@ -194,10 +249,73 @@ public class UserServiceTest {
         assertEquals(expectedMessage, exception.getMessage());
     }
 
+    @Test
+    @DisplayName("Register a new user, email exists in another case")
+    public void register_EmailExistsInOtherCase_RegistrationExceptionExpected() {
+        userRepository.save(savedUser);
+        UserRegistrationRequestDto sameEmail = new UserRegistrationRequestDto()
+                .setEmail(" " + savedUser.getEmail().toUpperCase() + " ")
+                .setFirstName("Sam")
+                .setLastName("Haris")
+                .setBirthDate(LocalDate.parse("2002-07-24"));
+        when(userMapper.toModel(sameEmail))
+                .thenReturn(User.builder().email(sameEmail.getEmail()).build());
+
+        assertThrows(RegistrationException.class, () -> userService.register(sameEmail));
+    }
+
+    @Test
+    @DisplayName("Register a batch of users, bad records are rejected one by one")
+    public void registerAll_MixedBatch_PerItemResults() {
+        userRepository.save(savedUser2);
+        UserRegistrationRequestDto notValidEmail = new UserRegistrationRequestDto()
+                .setEmail("sam.ukr.net")
+                .setFirstName("Sam")
+                .setLastName("Haris")
+                .setBirthDate(LocalDate.parse("2002-07-24"));
+        UserRegistrationRequestDto existingEmail = new UserRegistrationRequestDto()
+                .setEmail(savedUser2.getEmail())
+                .setFirstName("Mark")
+                .setLastName("Lumberg")
+                .setBirthDate(LocalDate.parse("1996-06-19"));
+        User newUser = User.builder()
+                .email(registrationRequestDto.getEmail())
+                .firstName("Eric")
+                .lastName("Brown")
+                .birthDate(LocalDate.parse("2002-03-14"))
+                .address("Lisova, 12")
+                .build();
+        when(userMapper.toModel(registrationRequestDto)).thenReturn(newUser);
+        when(userMapper.toModel(existingEmail)).thenReturn(User.builder()
+                .email(existingEmail.getEmail())
+                .build());
+        UserResponseDto createdDto = new UserResponseDto()
+                .setId(3)
+                .setEmail(registrationRequestDto.getEmail());
+        when(userMapper.toDto(newUser.toBuilder().id(3).version(1).build()))
+                .thenReturn(createdDto);
+
+        List<BatchRegistrationResultDto> actual = userService.registerAll(List.of(
+                registrationRequestDto, notValidEmail, registrationRequestDto, existingEmail));
+
+        assertEquals(4, actual.size());
+        assertEquals(Status.CREATED, actual.get(0).getStatus());
+        assertEquals(createdDto, actual.get(0).getUser());
+        assertEquals(Status.REJECTED, actual.get(1).getStatus());
+        assertEquals(List.of("email was formed not well."), actual.get(1).getErrors());
+        assertEquals(Status.REJECTED, actual.get(2).getStatus());
+        assertEquals(List.of("email is duplicated in the batch"), actual.get(2).getErrors());
+        assertEquals(Status.REJECTED, actual.get(3).getStatus());
+        assertEquals(List.of("The email address exists"), actual.get(3).getErrors());
+        assertEquals(2, userRepository.count());
+        assertEquals(3, userRepository.findByEmail(registrationRequestDto.getEmail())
+                .orElseThrow().getId());
+    }
+
     @Test
     @DisplayName("Update all user's info by id")
     public void updateUserInfo_ExistingId_ReturnUserResponseDto() {
-        Storage.userStorage.add(savedUser);
+        userRepository.save(savedUser);
         when(userMapper.toDto(updatedUser)).thenReturn(updatedResponseDto);
 
         UserResponseDto actual = userService.updateUserInfo(EXISTING_ID, updatingRequestDto);
@@ -221,8 +339,8 @@ public class UserServiceTest {
     @Test
     @DisplayName("Update all user's info by id and existing email")
     public void updateUserInfo_ExistingEmail_RegistrationExceptionExpected() {
-        Storage.userStorage.add(savedUser);
-        Storage.userStorage.add(savedUser2);
+        userRepository.save(savedUser);
+        userRepository.save(savedUser2);
         String expectedMessage = "The email address exists";
 
         Exception exception = assertThrows(
@@ -233,10 +351,36 @@ public class UserServiceTest {
         assertEquals(expectedMessage, exception.getMessage());
     }
 
+    @Test
+    @DisplayName("Update all user's info, stored user moves to the next version")
+    public void updateUserInfo_ExpectedVersion_VersionIncremented() {
+        userRepository.save(savedUser.toBuilder().version(3).build());
+
+        userService.updateUserInfo(EXISTING_ID, updatingRequestDto, 3L);
+
+        assertEquals(updatedUser.toBuilder().version(4).build(),
+                userRepository.findById(EXISTING_ID).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Update user's info at a stale version, user is untouched")
+    public void updateUserInfoPartially_StaleVersion_VersionConflictExceptionExpected() {
+        userRepository.save(savedUser.toBuilder().version(3).build());
+
+        Exception exception = assertThrows(
+                VersionConflictException.class,
+                () -> userService.updateUserInfoPartially(EXISTING_ID, fieldsToBeUpdated, 2L)
+        );
+
+        assertEquals("User 1 is at version 3, not 2", exception.getMessage());
+        assertEquals(savedUser.toBuilder().version(3).build(),
+                userRepository.findById(EXISTING_ID).orElseThrow());
+    }
+
     @Test
     @DisplayName("Update user's info partially by id")
     public void updateUserInfoPartially_ExistingId_ReturnUserResponseDto() {
-        Storage.userStorage.add(savedUser);
+        userRepository.save(savedUser);
         when(userMapper.toDto(updatedUserPartially)).thenReturn(updatedPartiallyResponseDto);
 
         UserResponseDto actual = userService.updateUserInfoPartially(EXISTING_ID,
@@ -261,7 +405,7 @@ public class UserServiceTest {
     @Test
     @DisplayName("Update user's info partially, empty lastName")
     public void updateUserInfoPartially_EmptyLastName_ValidationExceptionExpected() {
-        Storage.userStorage.add(savedUser);
+        userRepository.save(savedUser);
         String expectedMessage = "lastName must not be empty!";
 
         Exception exception = assertThrows(
@@ -275,7 +419,7 @@ public class UserServiceTest {
     @Test
     @DisplayName("Update user's info partially, not valid birthdate")
     public void updateUserInfoPartially_NotValidBirthdate_ValidationExceptionExpected() {
-        Storage.userStorage.add(savedUser);
+        userRepository.save(savedUser);
         String expectedMessage = "Invalid birth date. Check again";
 
         Exception exception = assertThrows(
@@ -286,20 +430,202 @@ public class UserServiceTest {
         assertEquals(expectedMessage, exception.getMessage());
     }
 
+    @Test
+    @DisplayName("Update user's info partially, unknown field")
+    public void updateUserInfoPartially_UnknownField_ValidationExceptionExpected() {
+        userRepository.save(savedUser);
+        Map<String, Object> fields = Map.of("id", 5);
+
+        Exception exception = assertThrows(
+                ValidationException.class,
+                () -> userService.updateUserInfoPartially(EXISTING_ID, fields)
+        );
+
+        assertEquals("Unknown field: id", exception.getMessage());
+        assertEquals(savedUser, userRepository.findById(EXISTING_ID).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Update user's info partially, not a string value")
+    public void updateUserInfoPartially_NotStringValue_ValidationExceptionExpected() {
+        userRepository.save(savedUser);
+        Map<String, Object> fields = Map.of("firstName", 42);
+
+        Exception exception = assertThrows(
+                ValidationException.class,
+                () -> userService.updateUserInfoPartially(EXISTING_ID, fields)
+        );
+
+        assertEquals("firstName must be a string", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Update user's info partially, birthdate in wrong format")
+    public void updateUserInfoPartially_WrongBirthDateFormat_ValidationExceptionExpected() {
+        userRepository.save(savedUser);
+        Map<String, Object> fields = Map.of("birthDate", "14.03.2002");
+
+        Exception exception = assertThrows(
+                ValidationException.class,
+                () -> userService.updateUserInfoPartially(EXISTING_ID, fields)
+        );
+
+        assertEquals("Invalid birth date. Check again", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Update user's info partially, malformed email")
+    public void updateUserInfoPartially_MalformedEmail_ValidationExceptionExpected() {
+        userRepository.save(savedUser);
+        Map<String, Object> fields = Map.of("email", "not-an-email");
+
+        Exception exception = assertThrows(
+                ValidationException.class,
+                () -> userService.updateUserInfoPartially(EXISTING_ID, fields)
+        );
+
+        assertEquals("email was formed not well.", exception.getMessage());
+        assertEquals(savedUser, userRepository.findById(EXISTING_ID).orElseThrow());
+    }
+
     @Test
     @DisplayName("Search users by birthdate range")
     public void searchUsers_BirthdateRangeOk_ReturnListOfUserResponseDto() {
-        Storage.userStorage.add(savedUser);
-        Storage.userStorage.add(savedUser2);
+        userRepository.save(savedUser);
+        userRepository.save(savedUser2);
         LocalDate fromDate = LocalDate.parse("1995-01-01");
         LocalDate toDate = LocalDate.parse("2006-02-20");
         when(userMapper.toDto(savedUser)).thenReturn(registrationResponseDto);
         when(userMapper.toDto(savedUser2)).thenReturn(registrationResponseDto2);
-        List<UserResponseDto> expected = List.of(registrationResponseDto, registrationResponseDto2);
+        List<UserResponseDto> expected = List.of(registrationResponseDto2, registrationResponseDto);
 
         List<UserResponseDto> actual = userService.searchByBirthDateRange(fromDate, toDate);
 
         assertEquals(expected, actual);
         assertEquals(expected.size(), actual.size());
     }
+
+    @Test
+    @DisplayName("Search users by name prefix")
+    public void searchByNamePrefix_PrefixOk_ReturnMatchingUsers() {
+        userRepository.save(savedUser);
+        userRepository.save(savedUser2);
+        namePrefixIndex.onChange(null, savedUser);
+        namePrefixIndex.onChange(null, savedUser2);
+        when(userMapper.toDto(savedUser2)).thenReturn(registrationResponseDto2);
+
+        List<UserResponseDto> actual = userService.searchByNamePrefix("LUM", 10);
+
+        assertEquals(List.of(registrationResponseDto2), actual);
+    }
+
+    @Test
+    @DisplayName("Query users by combined filters with the plan explained")
+    public void query_ExplainRequested_ReturnMatchingUsersAndPlan() {
+        userRepository.save(savedUser);
+        userRepository.save(savedUser2);
+        changeListeners.forEach(listener -> listener.onChange(null, savedUser));
+        changeListeners.forEach(listener -> listener.onChange(null, savedUser2));
+        UserQueryRequestDto requestDto = new UserQueryRequestDto();
+        requestDto.setLastNamePrefix("lum");
+        requestDto.setExplain(true);
+        when(userMapper.toDto(savedUser2)).thenReturn(registrationResponseDto2);
+
+        UserQueryResponseDto actual = userService.query(requestDto);
+
+        assertEquals(List.of(registrationResponseDto2), actual.getUsers());
+        assertEquals("NAME_PREFIX_INDEX", actual.getPlan().getAccessPath());
+        assertEquals(1, actual.getPlan().getRowsExamined());
+    }
+
+    @Test
+    @DisplayName("Search users by birthdate range page by page")
+    public void searchUsers_PageSmallerThanResult_ReturnPagesWithNextPageToken() {
+        userRepository.save(savedUser);
+        userRepository.save(savedUser2);
+        LocalDate fromDate = LocalDate.parse("1995-01-01");
+        LocalDate toDate = LocalDate.parse("2006-02-20");
+        when(userMapper.toDto(savedUser)).thenReturn(registrationResponseDto);
+        when(userMapper.toDto(savedUser2)).thenReturn(registrationResponseDto2);
+
+        UserPageResponseDto firstPage = userService.searchByBirthDateRange(fromDate, toDate,
+                null, 1);
+        UserPageResponseDto secondPage = userService.searchByBirthDateRange(fromDate, toDate,
+                firstPage.getNextPageToken(), 1);
+
+        assertEquals(List.of(registrationResponseDto2), firstPage.getUsers());
+        assertNotNull(firstPage.getNextPageToken());
+        assertEquals(List.of(registrationResponseDto), secondPage.getUsers());
+        assertNull(secondPage.getNextPageToken());
+    }
+
+    @Test
+    @DisplayName("Search users by birthdate range, not valid page token")
+    public void searchUsers_NotValidPageToken_ValidationExceptionExpected() {
+        LocalDate fromDate = LocalDate.parse("1995-01-01");
+        LocalDate toDate = LocalDate.parse("2006-02-20");
+
+        assertThrows(
+                ValidationException.class,
+                () -> userService.searchByBirthDateRange(fromDate, toDate, "not a token", 1)
+        );
+    }
+
+    @Test
+    @DisplayName("Update user's birthdate partially, birthdate index is moved")
+    public void updateUserInfoPartially_NewBirthDate_BirthDateIndexUpdated() {
+        userRepository.save(savedUser);
+        Map<String, Object> newBirthDate = Map.of("birthDate", "1990-05-01");
+
+        userService.updateUserInfoPartially(EXISTING_ID, newBirthDate);
+
+        List<User> oldRange = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("2002-01-01"), LocalDate.parse("2002-12-31")).toList();
+        List<User> newRange = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("1990-01-01"), LocalDate.parse("1990-12-31")).toList();
+        assertTrue(oldRange.isEmpty());
+        assertEquals(1, newRange.size());
+        assertEquals(LocalDate.parse("1990-05-01"), newRange.get(0).getBirthDate());
+        assertEquals(userRepository.findById(EXISTING_ID).orElseThrow(), newRange.get(0));
+    }
+
+    @Test
+    @DisplayName("Update user's info partially, birthdate index holds the updated user")
+    public void updateUserInfoPartially_SameBirthDate_BirthDateIndexHoldsUpdatedUser() {
+        userRepository.save(savedUser);
+
+        userService.updateUserInfoPartially(EXISTING_ID, fieldsToBeUpdated);
+
+        List<User> actual = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("2002-01-01"), LocalDate.parse("2002-12-31")).toList();
+        assertEquals(List.of(updatedUserPartially), actual);
+    }
+
+    @Test
+    @DisplayName("Update user's birthdate partially with not valid value, index is untouched")
+    public void updateUserInfoPartially_NotValidBirthdate_BirthDateIndexUntouched() {
+        userRepository.save(savedUser);
+
+        assertThrows(
+                ValidationException.class,
+                () -> userService.updateUserInfoPartially(EXISTING_ID, notValidBirthDate)
+        );
+
+        List<User> actual = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("2002-01-01"), LocalDate.parse("2002-12-31")).toList();
+        assertEquals(List.of(savedUser), actual);
+    }
+
+    @Test
+    @DisplayName("Delete user by id, user is removed from birthdate index")
+    public void deleteUser_ExistingId_RemovedFromBirthDateIndex() {
+        userRepository.save(savedUser);
+        userRepository.save(savedUser2);
+
+        userService.deleteUser(EXISTING_ID);
+
+        List<User> actual = userRepository.findAllByBirthDateBetween(
+                LocalDate.parse("1995-01-01"), LocalDate.parse("2006-02-20")).toList();
+        assertEquals(List.of(savedUser2), actual);
+    }
 }
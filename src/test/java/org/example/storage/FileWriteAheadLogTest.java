@@ -0,0 +1,197 @@
+package org.example.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.example.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileWriteAheadLogTest {
+    private static final Duration COMMIT_DELAY = Duration.ofMillis(2);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Replay returns appended records in order")
+    void replay_AppendedRecords_SameRecordsInOrder() throws IOException {
+        List<LogRecord> expected = List.of(
+                LogRecord.upsert(user(1, "first@ukr.net")),
+                LogRecord.upsert(user(2, "second@ukr.net").toBuilder().phoneNumber(null).build()),
+                LogRecord.upsert(user(1, "renamed@ukr.net")),
+                LogRecord.delete(2));
+        try (FileWriteAheadLog writeAheadLog = open()) {
+            expected.forEach(record -> writeAheadLog.append(record).join());
+        }
+
+        assertEquals(expected, replay(0));
+    }
+
+    @Test
+    @DisplayName("Records appended together replay in order between single appends")
+    void appendAll_Records_ReplayedInOrder() throws IOException {
+        List<LogRecord> together = List.of(
+                LogRecord.upsert(user(2, "second@ukr.net")),
+                LogRecord.delete(1),
+                LogRecord.upsert(user(3, "third@ukr.net")));
+        try (FileWriteAheadLog writeAheadLog = open()) {
+            writeAheadLog.append(LogRecord.upsert(user(1, "first@ukr.net"))).join();
+            writeAheadLog.appendAll(together).join();
+            writeAheadLog.appendAll(List.of()).join();
+            writeAheadLog.append(LogRecord.delete(2)).join();
+        }
+
+        List<LogRecord> expected = new ArrayList<>();
+        expected.add(LogRecord.upsert(user(1, "first@ukr.net")));
+        expected.addAll(together);
+        expected.add(LogRecord.delete(2));
+        assertEquals(expected, replay(0));
+    }
+
+    @Test
+    @DisplayName("Concurrent appends share fsyncs")
+    void append_ConcurrentWriters_GroupCommitted() throws Exception {
+        int records = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try (FileWriteAheadLog writeAheadLog = open()) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int id = 1; id <= records; id++) {
+                int userId = id;
+                futures.add(CompletableFuture.supplyAsync(() -> writeAheadLog.append(
+                        LogRecord.upsert(user(userId, "user" + userId + "@ukr.net"))), executor)
+                        .thenCompose(future -> future));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+            assertTrue(writeAheadLog.syncCount() < records,
+                    "Expected fewer fsyncs than records, got " + writeAheadLog.syncCount());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(records, replay(0).size());
+    }
+
+    @Test
+    @DisplayName("Replay cuts off a torn record at the end of the log")
+    void replay_TornTail_TruncatedAndAppendable() throws IOException {
+        try (FileWriteAheadLog writeAheadLog = open()) {
+            writeAheadLog.append(LogRecord.upsert(user(1, "first@ukr.net"))).join();
+        }
+        Path path = directory.resolve(String.format("users-%020d.wal", 1));
+        long validSize = Files.size(path);
+        Files.write(path, new byte[] {0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (FileWriteAheadLog writeAheadLog = new FileWriteAheadLog(directory,
+                COMMIT_DELAY)) {
+            writeAheadLog.replay(0, record -> { });
+            assertEquals(validSize, Files.size(path));
+            writeAheadLog.start();
+            writeAheadLog.append(LogRecord.delete(1)).join();
+        }
+
+        assertEquals(List.of(LogRecord.upsert(user(1, "first@ukr.net")), LogRecord.delete(1)),
+                replay(0));
+    }
+
+    @Test
+    @DisplayName("Replay skips segments before the requested one")
+    void replay_AfterRoll_OnlyNewerSegments() throws IOException {
+        long rolledTo;
+        try (FileWriteAheadLog writeAheadLog = open()) {
+            writeAheadLog.append(LogRecord.upsert(user(1, "first@ukr.net"))).join();
+            rolledTo = writeAheadLog.roll();
+            writeAheadLog.append(LogRecord.upsert(user(2, "second@ukr.net"))).join();
+        }
+
+        assertEquals(2, rolledTo);
+        assertEquals(2, replay(0).size());
+        assertEquals(List.of(LogRecord.upsert(user(2, "second@ukr.net"))), replay(rolledTo));
+    }
+
+    @Test
+    @DisplayName("Deleting old segments keeps the active one")
+    void deleteSegmentsBefore_RolledLog_OldSegmentsRemoved() throws IOException {
+        try (FileWriteAheadLog writeAheadLog = open()) {
+            writeAheadLog.append(LogRecord.upsert(user(1, "first@ukr.net"))).join();
+            writeAheadLog.deleteSegmentsBefore(writeAheadLog.roll());
+            writeAheadLog.append(LogRecord.delete(1)).join();
+        }
+
+        assertEquals(List.of(LogRecord.delete(1)), replay(0));
+    }
+
+    @Test
+    @DisplayName("Appends racing with close all complete")
+    void append_ConcurrentClose_EveryFutureCompletes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> futures = Collections.synchronizedList(new ArrayList<>());
+        try {
+            FileWriteAheadLog writeAheadLog = open();
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                writers.add(executor.submit(() -> {
+                    for (int id = 1; id <= 2000; id++) {
+                        futures.add(writeAheadLog.append(LogRecord.delete(id)));
+                    }
+                }));
+            }
+            writeAheadLog.close();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    private FileWriteAheadLog open() throws IOException {
+        FileWriteAheadLog writeAheadLog = new FileWriteAheadLog(directory, COMMIT_DELAY);
+        writeAheadLog.start();
+        return writeAheadLog;
+    }
+
+    private List<LogRecord> replay(long fromSegment) throws IOException {
+        List<LogRecord> records = new ArrayList<>();
+        try (FileWriteAheadLog writeAheadLog = new FileWriteAheadLog(directory, COMMIT_DELAY)) {
+            writeAheadLog.replay(fromSegment, records::add);
+        }
+        return records;
+    }
+
+    private static User user(int id, String email) {
+        return User.builder()
+                .id(id)
+                .email(email)
+                .firstName("Ерік")
+                .lastName("Brown")
+                .birthDate(LocalDate.parse("2002-03-14"))
+                .address("Lisova, 12")
+                .phoneNumber("+380501234567")
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.example.config.StorageConfig;
+import org.example.model.User;
+import org.example.repository.UserRepository;
+import org.example.repository.impl.InMemoryUserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotStoreTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Load returns the users, log segment and last id of the latest snapshot")
+    void load_WrittenSnapshots_LatestOne() throws IOException {
+        SnapshotStore snapshotStore = new SnapshotStore(directory);
+        List<User> users = IntStream.rangeClosed(1, 1000)
+                .mapToObj(id -> user(id, "user" + id + "@ukr.net"))
+                .toList();
+        snapshotStore.write(2, 1, List.of(user(1, "stale@ukr.net")));
+        snapshotStore.write(5, 1200, users);
+
+        List<User> loaded = new ArrayList<>();
+        Optional<SnapshotStore.Header> header = snapshotStore.load(loaded::add);
+
+        assertEquals(Optional.of(new SnapshotStore.Header(5, 1200)), header);
+        assertEquals(users, loaded);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Load without a snapshot returns nothing")
+    void load_NoSnapshot_Empty() throws IOException {
+        SnapshotStore snapshotStore = new SnapshotStore(directory.resolve("missing"));
+
+        assertTrue(snapshotStore.load(user -> { }).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Load rejects a snapshot with a corrupted record")
+    void load_CorruptedRecord_Exception() throws IOException {
+        SnapshotStore snapshotStore = new SnapshotStore(directory);
+        snapshotStore.write(1, 2, List.of(user(1, "first@ukr.net"),
+                user(2, "second@ukr.net")));
+        Path snapshot;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshot = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), channel.size() - 20);
+        }
+
+        assertThrows(IOException.class, () -> snapshotStore.load(user -> { }));
+    }
+
+    @Test
+    @DisplayName("Restart after deleting the highest id and checkpointing doesn't reuse the id")
+    void restart_HighestIdDeletedBeforeCheckpoint_IdNotReused() throws IOException {
+        StorageConfig storageConfig = new StorageConfig();
+        SnapshotStore snapshotStore = new SnapshotStore(directory);
+        UserRepository userRepository = new InMemoryUserRepository();
+        try (WriteAheadLog writeAheadLog = storageConfig.writeAheadLog(userRepository,
+                snapshotStore, true, directory, 1)) {
+            for (int i = 0; i < 3; i++) {
+                User user = user(userRepository.nextId(), "user" + i + "@ukr.net");
+                userRepository.save(user);
+                writeAheadLog.append(LogRecord.upsert(user)).join();
+            }
+            userRepository.deleteById(3);
+            writeAheadLog.append(LogRecord.delete(3)).join();
+            new Checkpointer(userRepository, writeAheadLog, snapshotStore).checkpoint();
+        }
+
+        UserRepository restored = new InMemoryUserRepository();
+        storageConfig.writeAheadLog(restored, snapshotStore, true, directory, 1).close();
+
+        assertEquals(2, restored.count());
+        assertEquals(4, restored.nextId());
+    }
+
+    private static User user(int id, String email) {
+        return User.builder()
+                .id(id)
+                .email(email)
+                .firstName("Ерік")
+                .lastName("Brown")
+                .birthDate(LocalDate.parse("2002-03-14"))
+                .address("Lisova, 12")
+                .phoneNumber(id % 2 == 0 ? null : "+380501234567")
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RequestTracingFilterTest {
+    private static final String BODY = "{\"id\":1}";
+
+    @Test
+    @DisplayName("Server-Timing lists every phase and the buffered body still reaches the client")
+    void doFilter_ServerTimingEnabled_HeaderAndBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new RequestTracingFilter(true).doFilter(new MockHttpServletRequest("GET", "/users/1"),
+                response, writingChain());
+
+        String header = response.getHeader(RequestTracingFilter.SERVER_TIMING_HEADER);
+        assertTrue(header.matches("validation;dur=[\\d.]+, service;dur=[\\d.]+, "
+                + "mapping;dur=[\\d.]+, serialization;dur=[\\d.]+"), header);
+        assertEquals(BODY, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Without Server-Timing or a recording nothing is traced")
+    void doFilter_Disabled_NoHeader() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new RequestTracingFilter(false).doFilter(new MockHttpServletRequest("GET", "/users/1"),
+                response, writingChain());
+
+        assertNull(response.getHeader(RequestTracingFilter.SERVER_TIMING_HEADER));
+        assertEquals(BODY, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("An event stream reaches the client as it is written, whatever Accept says")
+    void doFilter_EventStream_NotBuffered() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/changes");
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.ALL_VALUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String event = "event:registered\ndata:{}\n\n";
+
+        new RequestTracingFilter(true).doFilter(request, response, (req, res) -> {
+            res.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+            res.getOutputStream().write(event.getBytes(StandardCharsets.UTF_8));
+            res.flushBuffer();
+            assertEquals(event, response.getContentAsString());
+            assertTrue(response.isCommitted());
+        });
+
+        assertNull(response.getHeader(RequestTracingFilter.SERVER_TIMING_HEADER));
+        assertEquals(event, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("An NDJSON stream is written through instead of held in memory")
+    void doFilter_NdjsonStream_NotBuffered() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String line = BODY + "\n";
+
+        new RequestTracingFilter(true).doFilter(
+                new MockHttpServletRequest("GET", "/users/searchByBirthDateRange"), response,
+                (req, res) -> {
+                    res.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+                    res.getOutputStream().write(line.getBytes(StandardCharsets.UTF_8));
+                    assertEquals(line, response.getContentAsString());
+                });
+
+        assertNull(response.getHeader(RequestTracingFilter.SERVER_TIMING_HEADER));
+        assertEquals(line, response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Server-Timing durations use a dot whatever the default locale")
+    void serverTiming_CommaDecimalLocale_DotDecimals() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            RequestTrace trace = RequestTrace.start();
+            trace.finish();
+
+            assertTrue(trace.serverTiming().startsWith("validation;dur=0.000,"),
+                    trace.serverTiming());
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    @DisplayName("Nested phases are charged exclusively")
+    void enter_NestedPhase_ParentPaused() throws Exception {
+        final RequestTrace trace = RequestTrace.start();
+        RequestTrace.Phase outer = RequestTrace.enter(RequestTrace.Phase.SERVICE);
+        RequestTrace.Phase inner = RequestTrace.enter(RequestTrace.Phase.MAPPING);
+        Thread.sleep(20);
+        RequestTrace.exit(inner);
+        RequestTrace.exit(outer);
+        trace.finish();
+
+        assertNull(outer);
+        assertEquals(RequestTrace.Phase.SERVICE, inner);
+        assertTrue(trace.nanos(RequestTrace.Phase.MAPPING) >= 20_000_000);
+        assertTrue(trace.nanos(RequestTrace.Phase.SERVICE)
+                < trace.nanos(RequestTrace.Phase.MAPPING));
+    }
+
+    private static FilterChain writingChain() {
+        return (request, response) -> {
+            RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.SERVICE);
+            RequestTrace.exit(previous);
+            RequestTrace.enter(RequestTrace.Phase.SERIALIZATION);
+            response.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+}